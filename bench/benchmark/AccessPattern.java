@@ -0,0 +1,32 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+public enum AccessPattern {
+    SEQUENTIAL,
+    RANDOM;
+
+    private static final long SEED = 42L;
+
+    // Keys/indexes in [0, bound) visited in the order dictated by the pattern
+    public int[] indexes(int bound) {
+        int[] indexes = new int[bound];
+        for (int i = 0; i < bound; i++) {
+            indexes[i] = i;
+        }
+        if (this == RANDOM) {
+            shuffle(indexes);
+        }
+        return indexes;
+    }
+
+    static void shuffle(int[] values) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+}
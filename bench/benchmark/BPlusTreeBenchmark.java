@@ -0,0 +1,111 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tree.AVLTree;
+import tree.IntAVLTree;
+import tree.IntBPlusTree;
+import tree.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+// Lookup latency of pointer-based trees against the B+-tree at sizes well past
+// the CPU caches. The retained heap per key of each tree is printed once the
+// trial is over, measured as the used heap growth while building it.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@State(Scope.Thread)
+public class BPlusTreeBenchmark {
+
+    private static final int RANGE_WIDTH = 1000;
+
+    @Param({"AVLTree", "IntAVLTree", "IntBPlusTree-16", "IntBPlusTree-64", "IntBPlusTree-256"})
+    private String implementation;
+
+    @Param({"1000000", "10000000", "50000000"})
+    private int size;
+
+    private Tree<Integer, ?> tree;
+    private int[] keys;
+    private int cursor;
+    private long footprint;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = AccessPattern.RANDOM.indexes(size);
+        long before = usedHeap();
+        tree = create(implementation);
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        footprint = usedHeap() - before;
+        cursor = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n%s, %d keys: %.1f bytes/key%n", implementation, size, (double) footprint / size);
+    }
+
+    private static Tree<Integer, ?> create(String name) {
+        switch (name) {
+            case "AVLTree":
+                return new AVLTree();
+            case "IntAVLTree":
+                return new IntAVLTree(1 << 16);
+            case "IntBPlusTree-16":
+                return new IntBPlusTree(16);
+            case "IntBPlusTree-64":
+                return new IntBPlusTree(64);
+            case "IntBPlusTree-256":
+                return new IntBPlusTree(256);
+            default:
+                throw new IllegalArgumentException("Unknown tree: " + name);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public Object find() {
+        return tree.find(nextKey());
+    }
+
+    @Benchmark
+    public Object findMissing() {
+        return tree.find(-1 - nextKey());
+    }
+
+    @Benchmark
+    public void rangeScan(Blackhole blackhole) {
+        int lo = nextKey();
+        tree.rangeScan(lo, lo + RANGE_WIDTH, blackhole::consume);
+    }
+
+    private int nextKey() {
+        int key = keys[cursor];
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return key;
+    }
+}
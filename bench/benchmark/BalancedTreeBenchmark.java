@@ -0,0 +1,142 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.AVLTree;
+import tree.RedBlackTree;
+import tree.Tree;
+import tree.TreeStats;
+import tree.WAVLTree;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Rebalancing cost of AVL, red-black and WAVL trees under update traces. Next
+// to ops/s, the rotations per operation and the tree height at the end of each
+// iteration are reported as secondary results.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class BalancedTreeBenchmark {
+
+    private static final int TRACE_LENGTH = 1 << 20;
+
+    public enum Trace {
+        // 80% inserts: the tree settles around 80% of the key range
+        INSERT_HEAVY(80),
+        // 20% inserts: the tree settles around 20% of the key range
+        DELETE_HEAVY(20);
+
+        private final int insertPercent;
+
+        Trace(int insertPercent) {
+            this.insertPercent = insertPercent;
+        }
+    }
+
+    @Param({"AVLTree", "RedBlackTree", "WAVLTree"})
+    private String implementation;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"INSERT_HEAVY", "DELETE_HEAVY"})
+    private Trace trace;
+
+    private Tree<Integer, ?> tree;
+    private TreeStats stats;
+    private int[] keys;
+    private boolean[] inserts;
+    private int cursor;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double rotationsPerOp;
+        public long height;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stats = new TreeStats();
+        switch (implementation) {
+            case "AVLTree":
+                AVLTree avl = new AVLTree();
+                avl.setStats(stats);
+                tree = avl;
+                break;
+            case "RedBlackTree":
+                RedBlackTree<Integer> redBlack = new RedBlackTree<>();
+                redBlack.setStats(stats);
+                tree = redBlack;
+                break;
+            case "WAVLTree":
+                WAVLTree<Integer> wavl = new WAVLTree<>();
+                wavl.setStats(stats);
+                tree = wavl;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tree: " + implementation);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new int[TRACE_LENGTH];
+        inserts = new boolean[TRACE_LENGTH];
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            keys[i] = random.nextInt(size);
+            inserts[i] = random.nextInt(100) < trace.insertPercent;
+        }
+        for (int key : AccessPattern.RANDOM.indexes(size)) {
+            if (random.nextInt(100) < trace.insertPercent) {
+                tree.insert(key);
+            }
+        }
+        cursor = 0;
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStats() {
+        stats.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportShape(Counters counters) {
+        long operations = stats.operations();
+        counters.rotationsPerOp = operations == 0 ? 0 : (double) stats.rotations() / operations;
+        counters.height = height();
+    }
+
+    private int height() {
+        if (tree instanceof AVLTree) return ((AVLTree) tree).height();
+        if (tree instanceof RedBlackTree) return ((RedBlackTree<?>) tree).height();
+        return ((WAVLTree<?>) tree).height();
+    }
+
+    // Counters is only filled in by reportShape, it is a parameter here so
+    // that JMH reports it
+    @Benchmark
+    public Object update(Counters counters) {
+        int i = cursor;
+        cursor = (cursor + 1) & (TRACE_LENGTH - 1);
+        if (inserts[i]) {
+            tree.insert(keys[i]);
+        } else {
+            tree.remove(keys[i]);
+        }
+        return tree;
+    }
+}
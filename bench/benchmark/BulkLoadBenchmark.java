@@ -0,0 +1,55 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.AVLTree;
+
+import java.util.concurrent.TimeUnit;
+
+// Cold-start cost of loading already sorted keys into an AVLTree
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private int[] keys;
+
+    @Setup
+    public void setUp() {
+        keys = AccessPattern.SEQUENTIAL.indexes(size);
+    }
+
+    @Benchmark
+    public AVLTree insertOneByOne() {
+        AVLTree tree = new AVLTree();
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public AVLTree fromSorted() {
+        return AVLTree.fromSorted(keys);
+    }
+
+    @Benchmark
+    public AVLTree fromSortedParallel() {
+        return AVLTree.fromSortedParallel(keys);
+    }
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tree.Tree;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Mixed read/write workload on a shared tree: each operation is a find with
+// probability (100 - writePercent)%, otherwise an insert or remove of a random key.
+// rangeScan does the same with an ordered scan over RANGE_WIDTH keys as the read.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class ConcurrentTreeBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int RANGE_WIDTH = 100;
+
+    @Param({"ReadWriteLockAVLTree", "ConcurrentAVLTree", "LockFreeSkipList"})
+    private String implementation;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"5", "50"})
+    private int writePercent;
+
+    private Tree<Integer, ?> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = Implementations.concurrentTree(implementation);
+        // Keys live in [0, 2 * size), so about half of the random keys are present
+        for (int key : AccessPattern.RANDOM.indexes(size)) {
+            tree.insert(key * 2);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public Object mixed(ThreadRandom threadRandom) {
+        SplittableRandom random = threadRandom.random;
+        int key = random.nextInt(size * 2);
+        int dice = random.nextInt(100);
+        if (dice >= writePercent) {
+            return tree.find(key);
+        }
+        if ((dice & 1) == 0) {
+            tree.insert(key);
+        } else {
+            tree.remove(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public void rangeScan(ThreadRandom threadRandom, Blackhole blackhole) {
+        SplittableRandom random = threadRandom.random;
+        int key = random.nextInt(size * 2);
+        int dice = random.nextInt(100);
+        if (dice >= writePercent) {
+            tree.rangeScan(key, key + RANGE_WIDTH, blackhole::consume);
+        } else if ((dice & 1) == 0) {
+            tree.insert(key);
+        } else {
+            tree.remove(key);
+        }
+    }
+
+    // Contention scaling: runs the benchmark once per thread count
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentTreeBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
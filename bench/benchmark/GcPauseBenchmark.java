@@ -0,0 +1,59 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.OffHeapAVLTree;
+import tree.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+// Duration of a full collection while a large tree is live: the heap trees are
+// traced node by node, the off-heap one only contributes its chunk buffers.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+@State(Scope.Benchmark)
+public class GcPauseBenchmark {
+
+    @Param({"AVLTree", "IntAVLTree", "OffHeapAVLTree"})
+    private String implementation;
+
+    @Param({"1000000", "10000000", "50000000"})
+    private int size;
+
+    private Tree<Integer, ?> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = Implementations.tree(implementation);
+        for (int key : AccessPattern.RANDOM.indexes(size)) {
+            tree.insert(key);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (tree instanceof OffHeapAVLTree) {
+            ((OffHeapAVLTree) tree).close();
+        }
+    }
+
+    @Benchmark
+    public Object fullGc() {
+        System.gc();
+        return tree;
+    }
+}
@@ -0,0 +1,138 @@
+package benchmark;
+
+import list.CircularLinkedList;
+import list.DoublyLinkedList;
+import list.LinkedList;
+import list.List;
+import list.UnrolledLinkedList;
+import queue.ArrayQueue;
+import queue.BoundedBlockingQueue;
+import queue.LockFreeQueue;
+import queue.Queue;
+import queue.QueueImpl;
+import stack.ArrayStack;
+import stack.DynamicStack;
+import stack.LockFreeStack;
+import stack.Stack;
+import tree.AVLTree;
+import tree.AVLTreeMap;
+import tree.BinaryTree;
+import tree.ConcurrentAVLTree;
+import tree.IntAVLTree;
+import tree.IntBPlusTree;
+import tree.LockFreeSkipList;
+import tree.OffHeapAVLTree;
+import tree.PersistentAVLTree;
+import tree.RedBlackTree;
+import tree.SplayTree;
+import tree.Tree;
+import tree.WAVLTree;
+
+public final class Implementations {
+
+    private Implementations() {
+    }
+
+    public static List<Integer> list(String name) {
+        switch (name) {
+            case "LinkedList":
+                return new LinkedList<>();
+            case "DoublyLinkedList":
+                return new DoublyLinkedList<>();
+            case "CircularLinkedList":
+                return new CircularLinkedList<>();
+            case "UnrolledLinkedList":
+                return new UnrolledLinkedList<>();
+            default:
+                throw new IllegalArgumentException("Unknown list: " + name);
+        }
+    }
+
+    public static Stack<Integer> stack(String name) {
+        switch (name) {
+            case "DynamicStack":
+                return new DynamicStack<>();
+            case "ArrayStack":
+                return new ArrayStack<>();
+            default:
+                throw new IllegalArgumentException("Unknown stack: " + name);
+        }
+    }
+
+    public static Stack<Integer> concurrentStack(String name) {
+        switch (name) {
+            case "SynchronizedDynamicStack":
+                return new SynchronizedStack<>(new DynamicStack<>());
+            case "LockFreeStack":
+                return new LockFreeStack<>();
+            case "EliminationLockFreeStack":
+                return new LockFreeStack<>(Runtime.getRuntime().availableProcessors());
+            default:
+                throw new IllegalArgumentException("Unknown concurrent stack: " + name);
+        }
+    }
+
+    public static Queue<Integer> queue(String name) {
+        switch (name) {
+            case "QueueImpl":
+                return new QueueImpl<>();
+            case "ArrayQueue":
+                return new ArrayQueue<>();
+            default:
+                throw new IllegalArgumentException("Unknown queue: " + name);
+        }
+    }
+
+    public static Queue<Integer> concurrentQueue(String name) {
+        switch (name) {
+            case "SynchronizedQueueImpl":
+                return new SynchronizedQueue<>(new QueueImpl<>());
+            case "LockFreeQueue":
+                return new LockFreeQueue<>();
+            case "BoundedBlockingQueue":
+                return new BoundedBlockingQueue<>(1 << 16);
+            default:
+                throw new IllegalArgumentException("Unknown concurrent queue: " + name);
+        }
+    }
+
+    public static Tree<Integer, ?> tree(String name) {
+        switch (name) {
+            case "BinaryTree":
+                return new BinaryTree<Integer, Object>();
+            case "AVLTree":
+                return new AVLTree();
+            case "IntAVLTree":
+                return new IntAVLTree();
+            case "PersistentAVLTree":
+                return new PersistentAVLTree<Integer>();
+            case "IntBPlusTree":
+                return new IntBPlusTree();
+            case "OffHeapAVLTree":
+                return new OffHeapAVLTree();
+            case "AVLTreeMap":
+                return AVLTreeMap.<Integer, Integer>integerKeys().keyTree();
+            case "RedBlackTree":
+                return new RedBlackTree<Integer>();
+            case "WAVLTree":
+                return new WAVLTree<Integer>();
+            case "SplayTree":
+                return new SplayTree<Integer>();
+            default:
+                throw new IllegalArgumentException("Unknown tree: " + name);
+        }
+    }
+
+    public static Tree<Integer, ?> concurrentTree(String name) {
+        switch (name) {
+            case "ReadWriteLockAVLTree":
+                return new ReadWriteLockTree<>(new AVLTree());
+            case "ConcurrentAVLTree":
+                return new ConcurrentAVLTree<Integer>();
+            case "LockFreeSkipList":
+                return new LockFreeSkipList<Integer>();
+            default:
+                throw new IllegalArgumentException("Unknown concurrent tree: " + name);
+        }
+    }
+}
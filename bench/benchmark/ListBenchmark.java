@@ -0,0 +1,68 @@
+package benchmark;
+
+import list.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class ListBenchmark {
+
+    @Param({"LinkedList", "DoublyLinkedList", "CircularLinkedList", "UnrolledLinkedList"})
+    private String implementation;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private AccessPattern pattern;
+
+    private List<Integer> list;
+    private int[] indexes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        list = Implementations.list(implementation);
+        for (int i = 0; i < size; i++) {
+            list.insertAtEnd(i);
+        }
+        indexes = pattern.indexes(size);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Integer get() {
+        return list.get(nextIndex());
+    }
+
+    // Keeps the size constant so the walk length of every invocation is comparable
+    @Benchmark
+    public Integer insertAtEndRemoveFirst() {
+        list.insertAtEnd(size);
+        list.removeFirst();
+        return list.getFirst();
+    }
+
+    private int nextIndex() {
+        int index = indexes[cursor];
+        cursor = cursor + 1 == indexes.length ? 0 : cursor + 1;
+        return index;
+    }
+}
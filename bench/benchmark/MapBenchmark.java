@@ -0,0 +1,108 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.AVLTree;
+import tree.AVLTreeMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// Key/value lookups: the AVLTree plus HashMap pair this map replaces, the map
+// with compareTo and with the Integer fast path, and java.util.TreeMap.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class MapBenchmark {
+
+    @Param({"AVLTree+HashMap", "AVLTreeMap", "AVLTreeMap-integerKeys", "TreeMap"})
+    private String implementation;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private AVLTree keys;
+    private Map<Integer, Integer> values;
+    private AVLTreeMap<Integer, Integer> map;
+    private int[] order;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (implementation) {
+            case "AVLTree+HashMap":
+                keys = new AVLTree();
+                values = new HashMap<>();
+                break;
+            case "AVLTreeMap":
+                map = new AVLTreeMap<>();
+                break;
+            case "AVLTreeMap-integerKeys":
+                map = AVLTreeMap.integerKeys();
+                break;
+            case "TreeMap":
+                values = new TreeMap<>();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown map: " + implementation);
+        }
+        order = AccessPattern.RANDOM.indexes(size);
+        for (int key : order) {
+            put(key, key);
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Object get() {
+        int key = nextKey();
+        if (map != null) return map.get(key);
+        if (keys != null && keys.find(key) == null) return null;
+        return values.get(key);
+    }
+
+    @Benchmark
+    public Object put() {
+        int key = nextKey();
+        put(key, -key);
+        return key;
+    }
+
+    @Benchmark
+    public Object computeIfAbsent() {
+        int key = nextKey();
+        if (map != null) return map.computeIfAbsent(key, k -> k);
+        if (keys != null) keys.insert(key);
+        return values.computeIfAbsent(key, k -> k);
+    }
+
+    private void put(int key, int value) {
+        if (map != null) {
+            map.put(key, value);
+            return;
+        }
+        if (keys != null) keys.insert(key);
+        values.put(key, value);
+    }
+
+    private int nextKey() {
+        int key = order[cursor];
+        cursor = cursor + 1 == order.length ? 0 : cursor + 1;
+        return key;
+    }
+}
@@ -0,0 +1,105 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.MappedBPlusTree;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the disk-resident B+-tree: lookups served from the page cache, a
+// committed update, and reopening an existing file instead of rebuilding.
+// Committed updates of a tree at steady size must not grow the file: each
+// iteration fails when it ends with more than FILE_GROWTH_SLACK pages over
+// the page count seen after the first one.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Thread)
+public class MappedTreeBenchmark {
+
+    private static final int FILE_GROWTH_SLACK = 64;
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private Path file;
+    private MappedBPlusTree tree;
+    private int[] keys;
+    private int cursor;
+    private int baselinePageCount;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("mapped-tree", ".db");
+        Files.delete(file);
+        keys = AccessPattern.RANDOM.indexes(size);
+        tree = MappedBPlusTree.open(file);
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        tree.commit();
+        cursor = 0;
+        baselinePageCount = -1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkFileGrowth() {
+        int pageCount = tree.pageCount();
+        if (baselinePageCount < 0) {
+            baselinePageCount = pageCount;
+        } else if (pageCount > baselinePageCount + FILE_GROWTH_SLACK) {
+            throw new IllegalStateException("File grew from " + baselinePageCount + " to " + pageCount + " pages!");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tree.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public boolean find() {
+        return tree.contains(nextKey());
+    }
+
+    @Benchmark
+    public MappedBPlusTree removeInsertCommit() {
+        int key = nextKey();
+        tree.remove(key);
+        tree.insert(key);
+        tree.commit();
+        return tree;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long reopen() throws IOException {
+        tree.close();
+        tree = MappedBPlusTree.open(file);
+        return tree.size();
+    }
+
+    private int nextKey() {
+        int key = keys[cursor];
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return key;
+    }
+}
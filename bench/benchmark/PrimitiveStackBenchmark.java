@@ -0,0 +1,83 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stack.ArrayStack;
+import stack.DynamicStack;
+import stack.IntStack;
+
+import java.util.concurrent.TimeUnit;
+
+// Expression-evaluator style workload: push a run of ints, then pop them all.
+// Run through BenchmarkRunner so gc.alloc.rate.norm shows the per-operation
+// allocation of each stack (nodes plus boxing for the generic ones).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveStackBenchmark {
+
+    // Values start past the Integer cache so boxing really allocates
+    private static final int OFFSET = 1024;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private DynamicStack<Integer> dynamicStack;
+    private ArrayStack<Integer> arrayStack;
+    private IntStack intStack;
+
+    @Setup
+    public void setUp() {
+        dynamicStack = new DynamicStack<>();
+        arrayStack = new ArrayStack<>(size);
+        intStack = new IntStack(size);
+    }
+
+    @Benchmark
+    public long dynamicStack() {
+        for (int i = 0; i < size; i++) {
+            dynamicStack.push(i + OFFSET);
+        }
+        long sum = 0;
+        while (!dynamicStack.isEmpty()) {
+            sum += dynamicStack.pop();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long arrayStack() {
+        for (int i = 0; i < size; i++) {
+            arrayStack.push(i + OFFSET);
+        }
+        long sum = 0;
+        while (!arrayStack.isEmpty()) {
+            sum += arrayStack.pop();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intStack() {
+        for (int i = 0; i < size; i++) {
+            intStack.push(i + OFFSET);
+        }
+        long sum = 0;
+        while (!intStack.isEmpty()) {
+            sum += intStack.pop();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import queue.Queue;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class QueueBenchmark {
+
+    @Param({"QueueImpl", "ArrayQueue"})
+    private String implementation;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Queue<Integer> queue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = Implementations.queue(implementation);
+        for (int i = 0; i < size; i++) {
+            queue.enqueue(i);
+        }
+    }
+
+    @Benchmark
+    public Integer enqueueDequeue() {
+        queue.enqueue(size);
+        return queue.dequeue();
+    }
+
+    @Benchmark
+    public int fillAndDrain() {
+        Queue<Integer> q = Implementations.queue(implementation);
+        for (int i = 0; i < size; i++) {
+            q.enqueue(i);
+        }
+        int sum = 0;
+        while (!q.isEmpty()) {
+            sum += q.dequeue();
+        }
+        return sum;
+    }
+}
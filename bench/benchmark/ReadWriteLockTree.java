@@ -0,0 +1,107 @@
+package benchmark;
+
+import tree.Tree;
+
+import java.util.Iterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Baseline for the concurrent tree benchmarks: a single-threaded tree behind a
+// ReadWriteLock, readers share the read lock.
+public class ReadWriteLockTree<T, E> implements Tree<T, E> {
+
+    private final Tree<T, E> delegate;
+    private final ReadWriteLock lock;
+
+    public ReadWriteLockTree(Tree<T, E> delegate) {
+        this.delegate = delegate;
+        lock = new ReentrantReadWriteLock();
+    }
+
+    @Override
+    public void insert(T value) {
+        lock.writeLock().lock();
+        try {
+            delegate.insert(value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public E find(T value) {
+        lock.readLock().lock();
+        try {
+            return delegate.find(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(T value) {
+        lock.writeLock().lock();
+        try {
+            delegate.remove(value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        lock.readLock().lock();
+        try {
+            delegate.rangeScan(lo, hi, action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeRange(T lo, T hi) {
+        lock.writeLock().lock();
+        try {
+            delegate.removeRange(lo, hi);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        lock.readLock().lock();
+        try {
+            delegate.forEachInOrder(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        lock.readLock().lock();
+        try {
+            delegate.forEachPreOrder(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        lock.readLock().lock();
+        try {
+            delegate.forEachPostOrder(action);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The returned iterator is not guarded, only use it once writers are done
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return delegate.inOrderIterator();
+    }
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import queue.Queue;
+import queue.QueueImpl;
+import queue.SpscQueue;
+
+import java.util.concurrent.TimeUnit;
+
+// One producer thread and one consumer thread per group. Failed offers/polls
+// still count as invocations, so the successful transfers are reported
+// separately through the offered/polled counters.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SpscQueueBenchmark {
+
+    private static final Integer ELEMENT = 1;
+
+    @Param({"1024", "65536"})
+    private int capacity;
+
+    @Param({"64"})
+    private int batch;
+
+    private SpscQueue<Integer> spsc;
+    private Queue<Integer> synchronizedQueueImpl;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        spsc = new SpscQueue<>(capacity);
+        synchronizedQueueImpl = new QueueImpl<>();
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long offered;
+        public long polled;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            polled = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscOffer(Counters counters) {
+        if (spsc.offer(ELEMENT)) {
+            counters.offered++;
+        }
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscPoll(Counters counters) {
+        if (spsc.poll() != null) {
+            counters.polled++;
+        }
+    }
+
+    @Benchmark
+    @Group("spscBatch")
+    @GroupThreads(1)
+    public void spscFill(Counters counters) {
+        counters.offered += spsc.fill(() -> ELEMENT, batch);
+    }
+
+    @Benchmark
+    @Group("spscBatch")
+    @GroupThreads(1)
+    public void spscDrain(Counters counters) {
+        counters.polled += spsc.drain(e -> { }, batch);
+    }
+
+    // Today's setup: QueueImpl guarded by a lock, bounded by hand to the same capacity
+    @Benchmark
+    @Group("synchronizedQueueImpl")
+    @GroupThreads(1)
+    public void queueImplOffer(Counters counters) {
+        synchronized (synchronizedQueueImpl) {
+            if (synchronizedQueueImpl.size() < capacity) {
+                synchronizedQueueImpl.enqueue(ELEMENT);
+                counters.offered++;
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("synchronizedQueueImpl")
+    @GroupThreads(1)
+    public void queueImplPoll(Counters counters) {
+        synchronized (synchronizedQueueImpl) {
+            if (!synchronizedQueueImpl.isEmpty()) {
+                synchronizedQueueImpl.dequeue();
+                counters.polled++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stack.Stack;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class StackBenchmark {
+
+    @Param({"DynamicStack", "ArrayStack"})
+    private String implementation;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    private Stack<Integer> stack;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stack = Implementations.stack(implementation);
+        for (int i = 0; i < size; i++) {
+            stack.push(i);
+        }
+    }
+
+    @Benchmark
+    public Integer pushPop() {
+        stack.push(size);
+        return stack.pop();
+    }
+
+    @Benchmark
+    public int fillAndDrain() {
+        Stack<Integer> s = Implementations.stack(implementation);
+        for (int i = 0; i < size; i++) {
+            s.push(i);
+        }
+        int sum = 0;
+        while (!s.isEmpty()) {
+            sum += s.pop();
+        }
+        return sum;
+    }
+}
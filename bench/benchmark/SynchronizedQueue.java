@@ -0,0 +1,38 @@
+package benchmark;
+
+import queue.Queue;
+
+// Baseline for the concurrent benchmarks: a single-threaded queue behind one lock
+public class SynchronizedQueue<T> implements Queue<T> {
+
+    private final Queue<T> delegate;
+
+    public SynchronizedQueue(Queue<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void enqueue(T element) {
+        delegate.enqueue(element);
+    }
+
+    @Override
+    public synchronized T dequeue() {
+        return delegate.dequeue();
+    }
+
+    @Override
+    public synchronized T peek() {
+        return delegate.peek();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return delegate.size();
+    }
+}
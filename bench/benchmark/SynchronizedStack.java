@@ -0,0 +1,38 @@
+package benchmark;
+
+import stack.Stack;
+
+// Baseline for the concurrent benchmarks: a single-threaded stack behind one lock
+public class SynchronizedStack<T> implements Stack<T> {
+
+    private final Stack<T> delegate;
+
+    public SynchronizedStack(Stack<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void push(T element) {
+        delegate.push(element);
+    }
+
+    @Override
+    public synchronized T pop() {
+        return delegate.pop();
+    }
+
+    @Override
+    public synchronized T peek() {
+        return delegate.peek();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public synchronized int size() {
+        return delegate.size();
+    }
+}
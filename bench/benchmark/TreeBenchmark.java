@@ -0,0 +1,85 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tree.Tree;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class TreeBenchmark {
+
+    private static final int RANGE_WIDTH = 100;
+
+    @Param({"BinaryTree", "AVLTree", "IntAVLTree", "PersistentAVLTree", "IntBPlusTree",
+            "OffHeapAVLTree", "RedBlackTree", "WAVLTree", "SplayTree"})
+    private String implementation;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    private AccessPattern pattern;
+
+    private Tree<Integer, ?> tree;
+    private int[] keys;
+    private int cursor;
+
+    // The tree is always built from shuffled keys so BinaryTree stays comparable
+    // to AVLTree; the pattern only drives the order of the measured operations.
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = Implementations.tree(implementation);
+        for (int key : AccessPattern.RANDOM.indexes(size)) {
+            tree.insert(key);
+        }
+        keys = pattern.indexes(size);
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Object find() {
+        return tree.find(nextKey());
+    }
+
+    @Benchmark
+    public Object removeInsert() {
+        int key = nextKey();
+        tree.remove(key);
+        tree.insert(key);
+        return tree;
+    }
+
+    @Benchmark
+    public void forEachInOrder(Blackhole blackhole) {
+        tree.forEachInOrder(blackhole::consume);
+    }
+
+    @Benchmark
+    public void rangeScan(Blackhole blackhole) {
+        int lo = nextKey();
+        tree.rangeScan(lo, lo + RANGE_WIDTH, blackhole::consume);
+    }
+
+    private int nextKey() {
+        int key = keys[cursor];
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return key;
+    }
+}
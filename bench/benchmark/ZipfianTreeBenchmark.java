@@ -0,0 +1,128 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tree.AVLTree;
+import tree.BinaryTree;
+import tree.SplayTree;
+import tree.Tree;
+import tree.TreeStats;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// find() on a skewed workload: the key of rank r is looked up with probability
+// proportional to 1 / r^exponent. Ranks are assigned to shuffled keys, so the
+// hot keys are spread over the key range. Next to the latency, the average
+// number of nodes visited per find is reported as a secondary result.
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Thread)
+public class ZipfianTreeBenchmark {
+
+    private static final int TRACE_LENGTH = 1 << 20;
+
+    @Param({"AVLTree", "BinaryTree", "SplayTree"})
+    private String implementation;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"0.8", "1.0", "1.2"})
+    private double exponent;
+
+    private Tree<Integer, ?> tree;
+    private TreeStats stats;
+    private int[] trace;
+    private int cursor;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public double averageDepth;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stats = new TreeStats();
+        switch (implementation) {
+            case "AVLTree":
+                AVLTree avl = new AVLTree();
+                avl.setStats(stats);
+                tree = avl;
+                break;
+            case "BinaryTree":
+                BinaryTree<Integer, Object> binary = new BinaryTree<>();
+                binary.setStats(stats);
+                tree = binary;
+                break;
+            case "SplayTree":
+                SplayTree<Integer> splay = new SplayTree<>();
+                splay.setStats(stats);
+                tree = splay;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tree: " + implementation);
+        }
+        // Random insertion order keeps the unbalanced BinaryTree at ~2 ln(n)
+        int[] keys = AccessPattern.RANDOM.indexes(size);
+        for (int key : keys) {
+            tree.insert(key);
+        }
+        trace = zipfTrace(keys, exponent);
+        cursor = 0;
+    }
+
+    // Samples ranks by inverting the cumulative distribution
+    private static int[] zipfTrace(int[] keysByRank, double exponent) {
+        double[] cumulative = new double[keysByRank.length];
+        double sum = 0;
+        for (int rank = 0; rank < keysByRank.length; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        int[] trace = new int[TRACE_LENGTH];
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            if (rank < 0) rank = -rank - 1;
+            trace[i] = keysByRank[Math.min(rank, keysByRank.length - 1)];
+        }
+        return trace;
+    }
+
+    @Setup(Level.Iteration)
+    public void resetStats() {
+        stats.reset();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportDepth(Counters counters) {
+        counters.averageDepth = stats.averageDepth();
+    }
+
+    // Counters is only filled in by reportDepth, it is a parameter here so
+    // that JMH reports it
+    @Benchmark
+    public Object find(Counters counters) {
+        int key = trace[cursor];
+        cursor = (cursor + 1) & (TRACE_LENGTH - 1);
+        return tree.find(key);
+    }
+}
@@ -0,0 +1,272 @@
+package list;
+
+import java.util.Arrays;
+
+// Doubly linked list of small arrays. Each node holds up to nodeCapacity
+// elements, so walking to an index skips a whole node per step and scanning
+// reads consecutive array slots instead of chasing one pointer per element.
+// Nodes are kept at least half full (the last one excepted): an insert into a
+// full node splits it in two, a remove that leaves a node under half full
+// borrows from or merges with its successor.
+public class UnrolledLinkedList<T> implements List<T> {
+
+    private static final int DEFAULT_NODE_CAPACITY = 64;
+
+    private static class Node {
+        private final Object[] elements;
+        private int count;
+        private Node next;
+        private Node prev;
+
+        public Node(int capacity) {
+            elements = new Object[capacity];
+            count = 0;
+            next = null;
+            prev = null;
+        }
+    }
+
+    private final int nodeCapacity;
+    private Node first, last;
+    private int size;
+    // Set by findNode: offset of the requested index inside the returned node
+    private int offset;
+
+    public UnrolledLinkedList() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+
+    public UnrolledLinkedList(int nodeCapacity) {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2!");
+        }
+        this.nodeCapacity = nodeCapacity;
+        first = null;
+        last = null;
+        size = 0;
+        offset = 0;
+    }
+
+    @Override
+    public void insertAtBegin(T element) {
+        if (isEmpty()) {
+            insertFirstElement(element);
+            return;
+        }
+        insertInNode(first, 0, element);
+    }
+
+    @Override
+    public void insertAtEnd(T element) {
+        if (isEmpty()) {
+            insertFirstElement(element);
+            return;
+        }
+        // Filling the last node up completely keeps sequential appends dense
+        if (last.count == nodeCapacity) {
+            linkAfter(last, new Node(nodeCapacity));
+        }
+        insertInNode(last, last.count, element);
+    }
+
+    @Override
+    public void insert(T element, int index) {
+        if (index < 0 || index > size) {
+            throw new NullPointerException("Index out of boundaries!");
+        }
+        if (index == 0) {
+            insertAtBegin(element);
+            return;
+        }
+        if (index == size) {
+            insertAtEnd(element);
+            return;
+        }
+        Node node = findNode(index);
+        insertInNode(node, offset, element);
+    }
+
+    @Override
+    public void removeFirst() {
+        if (isEmpty()) {
+            throw new EmptyListException("List is empty!");
+        }
+        removeFromNode(first, 0);
+    }
+
+    @Override
+    public void removeLast() {
+        if (isEmpty()) {
+            throw new EmptyListException("List is empty!");
+        }
+        removeFromNode(last, last.count - 1);
+    }
+
+    @Override
+    public void remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new NullPointerException("Index out of boundaries!");
+        }
+        Node node = findNode(index);
+        removeFromNode(node, offset);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getFirst() {
+        if (isEmpty()) {
+            throw new EmptyListException("List is empty!");
+        }
+        return (T) first.elements[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getLast() {
+        if (isEmpty()) {
+            throw new EmptyListException("List is empty!");
+        }
+        return (T) last.elements[last.count - 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (isEmpty()) {
+            throw new EmptyListException("List is empty!");
+        }
+        if (index < 0 || index >= size) {
+            throw new NullPointerException("Index out of boundaries!");
+        }
+        Node node = findNode(index);
+        return (T) node.elements[offset];
+    }
+
+    @Override
+    public int indexOf(T element) {
+        int base = 0;
+        for (Node node = first; node != null; node = node.next) {
+            for (int i = 0; i < node.count; i++) {
+                if (element.equals(node.elements[i])) {
+                    return base + i;
+                }
+            }
+            base += node.count;
+        }
+        throw new NullPointerException("Element does not exist!");
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void insertFirstElement(T element) {
+        Node node = new Node(nodeCapacity);
+        first = node;
+        last = node;
+        insertInNode(node, 0, element);
+    }
+
+    // Walks from the nearer end, one node per step. Returns the node holding
+    // index and sets offset to its position in that node.
+    private Node findNode(int index) {
+        Node node;
+        if (index <= size / 2) {
+            node = first;
+            while (index >= node.count) {
+                index -= node.count;
+                node = node.next;
+            }
+        } else {
+            node = last;
+            int base = size - node.count;
+            while (index < base) {
+                node = node.prev;
+                base -= node.count;
+            }
+            index -= base;
+        }
+        offset = index;
+        return node;
+    }
+
+    // A full node is split first, its upper half moves to a new successor
+    private void insertInNode(Node node, int position, T element) {
+        if (node.count == nodeCapacity) {
+            Node split = new Node(nodeCapacity);
+            int half = nodeCapacity / 2;
+            int moved = node.count - half;
+            System.arraycopy(node.elements, half, split.elements, 0, moved);
+            Arrays.fill(node.elements, half, node.count, null);
+            split.count = moved;
+            node.count = half;
+            linkAfter(node, split);
+            if (position > half) {
+                node = split;
+                position -= half;
+            }
+        }
+        System.arraycopy(node.elements, position, node.elements, position + 1, node.count - position);
+        node.elements[position] = element;
+        node.count++;
+        size++;
+    }
+
+    private void removeFromNode(Node node, int position) {
+        System.arraycopy(node.elements, position + 1, node.elements, position, node.count - position - 1);
+        node.elements[--node.count] = null;
+        size--;
+        if (node.count == 0) {
+            unlink(node);
+            return;
+        }
+        int minCount = nodeCapacity / 2;
+        Node next = node.next;
+        if (node.count >= minCount || next == null) {
+            return;
+        }
+        if (next.count > minCount) {
+            // Borrow the successor's first element
+            node.elements[node.count++] = next.elements[0];
+            System.arraycopy(next.elements, 1, next.elements, 0, next.count - 1);
+            next.elements[--next.count] = null;
+        } else {
+            // Both fit in one node, absorb the successor
+            System.arraycopy(next.elements, 0, node.elements, node.count, next.count);
+            node.count += next.count;
+            unlink(next);
+        }
+    }
+
+    private void linkAfter(Node node, Node created) {
+        created.prev = node;
+        created.next = node.next;
+        if (node.next != null) {
+            node.next.prev = created;
+        } else {
+            last = created;
+        }
+        node.next = created;
+    }
+
+    private void unlink(Node node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            first = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            last = node.prev;
+        }
+        node.next = null;
+        node.prev = null;
+    }
+}
@@ -0,0 +1,95 @@
+package queue;
+
+public class ArrayQueue<T> implements Queue<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] elements;
+    private int mask;
+    private int head, tail;
+    private int size;
+
+    public ArrayQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayQueue(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        int capacity = roundUpToPowerOfTwo(initialCapacity);
+        elements = new Object[capacity];
+        mask = capacity - 1;
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    @Override
+    public void enqueue(T element) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[tail] = element;
+        tail = (tail + 1) & mask;
+        size++;
+    }
+
+    @Override
+    public T dequeue() {
+        if (isEmpty()) {
+            throw new EmptyQueueException("Queue is empty!");
+        }
+        T value = elementAt(head);
+        elements[head] = null; // Let the GC reclaim the dequeued element
+        head = (head + 1) & mask;
+        size--;
+        return value;
+    }
+
+    @Override
+    public T peek() {
+        if (isEmpty()) {
+            throw new EmptyQueueException("Queue is empty!");
+        }
+        return elementAt(head);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Doubles the capacity and unwraps the ring so head starts again at index 0
+    private void grow() {
+        int capacity = elements.length;
+        if (capacity == 1 << 30) {
+            throw new IllegalStateException("Queue is full!");
+        }
+        Object[] grown = new Object[capacity << 1];
+        int headToEnd = capacity - head;
+        System.arraycopy(elements, head, grown, 0, headToEnd);
+        System.arraycopy(elements, 0, grown, headToEnd, head);
+        elements = grown;
+        mask = grown.length - 1;
+        head = 0;
+        tail = capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) elements[index];
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        if (value > 1 << 30) {
+            throw new IllegalArgumentException("Capacity too large!");
+        }
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
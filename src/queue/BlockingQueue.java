@@ -0,0 +1,19 @@
+package queue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+public interface BlockingQueue<T> extends Queue<T> {
+
+    void put(T element) throws InterruptedException;
+
+    T take() throws InterruptedException;
+
+    boolean offer(T element, long timeout, TimeUnit unit) throws InterruptedException;
+
+    T poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    int drainTo(Collection<? super T> target, int maxElements);
+
+    int capacity();
+}
@@ -0,0 +1,196 @@
+package queue;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded queue whose put/take park the calling thread instead of throwing.
+// Waiting is done on ReentrantLock conditions rather than synchronized/wait so
+// virtual threads unmount while blocked instead of pinning their carrier.
+public class BoundedBlockingQueue<T> implements BlockingQueue<T> {
+
+    private final Queue<T> elements;
+    private final int capacity;
+    private final ReentrantLock lock;
+    private final Condition notEmpty;
+    private final Condition notFull;
+
+    public BoundedBlockingQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        this.capacity = capacity;
+        elements = new ArrayQueue<>(capacity);
+        lock = new ReentrantLock();
+        notEmpty = lock.newCondition();
+        notFull = lock.newCondition();
+    }
+
+    @Override
+    public void enqueue(T element) {
+        checkNotNull(element);
+        lock.lock();
+        try {
+            if (isFull()) {
+                throw new FullQueueException("Queue is full!");
+            }
+            insert(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(T element) throws InterruptedException {
+        checkNotNull(element);
+        lock.lockInterruptibly();
+        try {
+            while (isFull()) {
+                notFull.await();
+            }
+            insert(element);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer(T element, long timeout, TimeUnit unit) throws InterruptedException {
+        checkNotNull(element);
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (isFull()) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            insert(element);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T dequeue() {
+        lock.lock();
+        try {
+            if (elements.isEmpty()) {
+                throw new EmptyQueueException("Queue is empty!");
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (elements.isEmpty()) {
+                notEmpty.await();
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns null if the queue is still empty once the timeout elapses
+    @Override
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (elements.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return extract();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Moves up to maxElements into target under a single lock acquisition
+    @Override
+    public int drainTo(Collection<? super T> target, int maxElements) {
+        lock.lock();
+        try {
+            int count = 0;
+            while (count < maxElements && !elements.isEmpty()) {
+                target.add(elements.dequeue());
+                count++;
+            }
+            if (count > 0) {
+                notFull.signalAll();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public T peek() {
+        lock.lock();
+        try {
+            return elements.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return elements.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return elements.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    private boolean isFull() {
+        return elements.size() == capacity;
+    }
+
+    // Checked before taking the lock, so a null is rejected even when full
+    private static void checkNotNull(Object element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null!");
+        }
+    }
+
+    private void insert(T element) {
+        elements.enqueue(element);
+        notEmpty.signal();
+    }
+
+    private T extract() {
+        T value = elements.dequeue();
+        notFull.signal();
+        return value;
+    }
+}
@@ -0,0 +1,7 @@
+package queue;
+
+public class FullQueueException extends RuntimeException {
+    public FullQueueException(String message) {
+        super(message);
+    }
+}
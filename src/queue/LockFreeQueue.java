@@ -0,0 +1,149 @@
+package queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Michael-Scott non-blocking linked queue. The head always points to a dummy
+// element whose successor holds the next value to be dequeued.
+public class LockFreeQueue<T> implements Queue<T> {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(LockFreeQueue.class, "head", Element.class);
+            TAIL = lookup.findVarHandle(LockFreeQueue.class, "tail", Element.class);
+            NEXT = lookup.findVarHandle(Element.class, "next", Element.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Element {
+        private volatile Object value;
+        private volatile Element next;
+        // Position in the queue, used to answer size() without a shared counter
+        private final long index;
+
+        public Element(Object value, long index) {
+            this.value = value;
+            this.index = index;
+            next = null;
+        }
+    }
+
+    private volatile Element head, tail;
+
+    public LockFreeQueue() {
+        Element dummy = new Element(null, 0);
+        head = dummy;
+        tail = dummy;
+    }
+
+    @Override
+    public void enqueue(T element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null!");
+        }
+        while (true) {
+            Element last = tail;
+            Element next = last.next;
+            if (last != tail) {
+                continue;
+            }
+            if (next != null) {
+                // Tail is lagging behind, help the other producer before retrying
+                TAIL.compareAndSet(this, last, next);
+                continue;
+            }
+            Element e = new Element(element, last.index + 1);
+            if (NEXT.compareAndSet(last, null, e)) {
+                TAIL.compareAndSet(this, last, e);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public T dequeue() {
+        T value = poll();
+        if (value == null) {
+            throw new EmptyQueueException("Queue is empty!");
+        }
+        return value;
+    }
+
+    // Same as dequeue, but returns null instead of throwing when the queue is
+    // empty. Prefer it under concurrency, where isEmpty() followed by dequeue()
+    // is a race.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (true) {
+            Element first = head;
+            Element last = tail;
+            Element next = first.next;
+            if (first != head) {
+                continue;
+            }
+            if (next == null) {
+                return null;
+            }
+            if (first == last) {
+                TAIL.compareAndSet(this, last, next);
+                continue;
+            }
+            if (HEAD.compareAndSet(this, first, next)) {
+                // Only the thread that moved head owns next.value, clear it so the
+                // new dummy element does not retain the dequeued value.
+                Object value = next.value;
+                next.value = null;
+                return (T) value;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        while (true) {
+            Element first = head;
+            Element next = first.next;
+            if (next == null) {
+                throw new EmptyQueueException("Queue is empty!");
+            }
+            Object value = next.value;
+            // A null value means a concurrent dequeue consumed it, read again
+            if (value != null && first == head) {
+                return (T) value;
+            }
+        }
+    }
+
+    // Linearizable: the dummy element has no successor only while it is the
+    // last element, so it is still the head when next is read as null.
+    @Override
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    // Linearizable: the last element is found while head is known to be
+    // unchanged, so both ends belong to the same instant. Costs a few volatile
+    // reads instead of a contended counter on every enqueue/dequeue.
+    @Override
+    public int size() {
+        while (true) {
+            Element first = head;
+            Element last = tail;
+            Element next;
+            while ((next = last.next) != null) {
+                last = next;
+            }
+            if (first == head) {
+                return (int) Math.min(last.index - first.index, Integer.MAX_VALUE);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package queue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Bounded single-producer/single-consumer ring buffer. Only one thread may call
+// the producer methods (enqueue, offer, fill) and only one thread the consumer
+// methods (dequeue, poll, peek, drain). Indexes are published with
+// release/acquire instead of CAS, and each side caches the other side's index
+// so it only reads the contended cache line when its cached view runs out.
+public class SpscQueue<T> extends SpscQueuePad2<T> {
+
+    public SpscQueue(int capacity) {
+        super(capacity);
+    }
+
+    @Override
+    public void enqueue(T element) {
+        if (!offer(element)) {
+            throw new FullQueueException("Queue is full!");
+        }
+    }
+
+    public boolean offer(T element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null!");
+        }
+        long index = producerIndex;
+        if (index >= producerLimit && !refreshProducerLimit(index + 1)) {
+            return false;
+        }
+        buffer[(int) index & mask] = element;
+        PRODUCER_INDEX.setRelease(this, index + 1);
+        return true;
+    }
+
+    // Enqueues up to limit elements taken from the supplier and publishes them
+    // with a single release store. Returns how many were enqueued.
+    public int fill(Supplier<? extends T> supplier, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative!");
+        }
+        long index = producerIndex;
+        if (index + limit > producerLimit) {
+            refreshProducerLimit(index + limit);
+        }
+        int count = (int) Math.min(limit, producerLimit - index);
+        for (int i = 0; i < count; i++) {
+            T element = supplier.get();
+            if (element == null) {
+                throw new IllegalArgumentException("Element cannot be null!");
+            }
+            buffer[(int) (index + i) & mask] = element;
+        }
+        PRODUCER_INDEX.setRelease(this, index + count);
+        return count;
+    }
+
+    @Override
+    public T dequeue() {
+        T value = poll();
+        if (value == null) {
+            throw new EmptyQueueException("Queue is empty!");
+        }
+        return value;
+    }
+
+    public T poll() {
+        long index = consumerIndex;
+        if (index >= producerIndexCache && !refreshProducerIndexCache(index + 1)) {
+            return null;
+        }
+        int offset = (int) index & mask;
+        T value = elementAt(offset);
+        buffer[offset] = null;
+        CONSUMER_INDEX.setRelease(this, index + 1);
+        return value;
+    }
+
+    // Hands up to limit elements to the consumer and releases their slots with
+    // a single release store. Returns how many were dequeued.
+    public int drain(Consumer<? super T> consumer, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative!");
+        }
+        long index = consumerIndex;
+        if (index + limit > producerIndexCache) {
+            refreshProducerIndexCache(index + limit);
+        }
+        int count = (int) Math.min(limit, producerIndexCache - index);
+        for (int i = 0; i < count; i++) {
+            int offset = (int) (index + i) & mask;
+            T value = elementAt(offset);
+            buffer[offset] = null;
+            consumer.accept(value);
+        }
+        CONSUMER_INDEX.setRelease(this, index + count);
+        return count;
+    }
+
+    @Override
+    public T peek() {
+        long index = consumerIndex;
+        if (index >= producerIndexCache && !refreshProducerIndexCache(index + 1)) {
+            throw new EmptyQueueException("Queue is empty!");
+        }
+        return elementAt((int) index & mask);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Exact when called from the producer or consumer thread, a point-in-time
+    // approximation (always within [0, capacity]) from any other thread.
+    @Override
+    public int size() {
+        while (true) {
+            long consumer = (long) CONSUMER_INDEX.getAcquire(this);
+            long producer = (long) PRODUCER_INDEX.getAcquire(this);
+            if (consumer == (long) CONSUMER_INDEX.getAcquire(this)) {
+                return (int) Math.max(0, Math.min(producer - consumer, buffer.length));
+            }
+        }
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    private boolean refreshProducerLimit(long required) {
+        producerLimit = (long) CONSUMER_INDEX.getAcquire(this) + buffer.length;
+        return required <= producerLimit;
+    }
+
+    private boolean refreshProducerIndexCache(long required) {
+        producerIndexCache = (long) PRODUCER_INDEX.getAcquire(this);
+        return required <= producerIndexCache;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int offset) {
+        return (T) buffer[offset];
+    }
+}
+
+// The classes below only exist to lay out the hot indexes on their own cache
+// lines: the JVM places superclass fields before subclass fields, so the
+// padding fields keep the producer and consumer indexes from false sharing.
+
+abstract class SpscQueueBufferFields<T> implements Queue<T> {
+    protected final Object[] buffer;
+    protected final int mask;
+
+    SpscQueueBufferFields(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30!");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+}
+
+abstract class SpscQueuePad0<T> extends SpscQueueBufferFields<T> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscQueuePad0(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscQueueProducerFields<T> extends SpscQueuePad0<T> {
+    protected static final VarHandle PRODUCER_INDEX;
+
+    static {
+        try {
+            PRODUCER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscQueueProducerFields.class, "producerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected volatile long producerIndex;
+    // Producer-local: the index the producer may write up to without re-reading consumerIndex
+    protected long producerLimit;
+
+    SpscQueueProducerFields(int capacity) {
+        super(capacity);
+        producerLimit = buffer.length;
+    }
+}
+
+abstract class SpscQueuePad1<T> extends SpscQueueProducerFields<T> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscQueuePad1(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscQueueConsumerFields<T> extends SpscQueuePad1<T> {
+    protected static final VarHandle CONSUMER_INDEX;
+
+    static {
+        try {
+            CONSUMER_INDEX = MethodHandles.lookup()
+                    .findVarHandle(SpscQueueConsumerFields.class, "consumerIndex", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    protected volatile long consumerIndex;
+    // Consumer-local: last producerIndex observed by the consumer
+    protected long producerIndexCache;
+
+    SpscQueueConsumerFields(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class SpscQueuePad2<T> extends SpscQueueConsumerFields<T> {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    SpscQueuePad2(int capacity) {
+        super(capacity);
+    }
+}
@@ -0,0 +1,90 @@
+package stack;
+
+import java.util.Arrays;
+
+public class ArrayStack<T> implements Stack<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private Object[] elements;
+    private int size;
+    private final int minCapacity;
+    private final boolean shrinkable;
+
+    public ArrayStack() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    public ArrayStack(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    // When shrinkable, the array is halved once it is only a quarter full, so a
+    // burst of pushes does not pin memory forever. Never shrinks below the
+    // initial capacity.
+    public ArrayStack(int initialCapacity, boolean shrinkable) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        elements = new Object[initialCapacity];
+        size = 0;
+        minCapacity = initialCapacity;
+        this.shrinkable = shrinkable;
+    }
+
+    @Override
+    public void push(T element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, grownCapacity(elements.length));
+        }
+        elements[size++] = element;
+    }
+
+    @Override
+    public T pop() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        T value = elementAt(--size);
+        elements[size] = null; // Let the GC reclaim the popped element
+        if (shrinkable && size <= elements.length >> 2 && elements.length >> 1 >= minCapacity) {
+            elements = Arrays.copyOf(elements, elements.length >> 1);
+        }
+        return value;
+    }
+
+    @Override
+    public T peek() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        return elementAt(size - 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public void trimToSize() {
+        elements = Arrays.copyOf(elements, Math.max(size, 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) elements[index];
+    }
+
+    static int grownCapacity(int capacity) {
+        if (capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Stack is full!");
+        }
+        return (int) Math.min((long) capacity + (capacity >> 1) + 1, MAX_CAPACITY);
+    }
+}
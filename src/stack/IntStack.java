@@ -0,0 +1,70 @@
+package stack;
+
+import java.util.Arrays;
+
+// int specialization of ArrayStack: values are stored unboxed, so push/pop
+// never allocate once the array has grown to its working size.
+public class IntStack {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] elements;
+    private int size;
+    private final int minCapacity;
+    private final boolean shrinkable;
+
+    public IntStack() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    public IntStack(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    public IntStack(int initialCapacity, boolean shrinkable) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        elements = new int[initialCapacity];
+        size = 0;
+        minCapacity = initialCapacity;
+        this.shrinkable = shrinkable;
+    }
+
+    public void push(int element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, ArrayStack.grownCapacity(elements.length));
+        }
+        elements[size++] = element;
+    }
+
+    public int pop() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        int value = elements[--size];
+        if (shrinkable && size <= elements.length >> 2 && elements.length >> 1 >= minCapacity) {
+            elements = Arrays.copyOf(elements, elements.length >> 1);
+        }
+        return value;
+    }
+
+    public int peek() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        return elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void trimToSize() {
+        elements = Arrays.copyOf(elements, Math.max(size, 1));
+    }
+}
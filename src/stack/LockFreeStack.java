@@ -0,0 +1,148 @@
+package stack;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Treiber stack: a single CAS on top per push/pop. With elimination enabled, a
+// thread whose CAS fails tries to meet an opposite operation in a small side
+// array first, so a push and a pop can cancel out without touching top.
+public class LockFreeStack<T> implements Stack<T> {
+
+    private static final VarHandle TOP;
+
+    static {
+        try {
+            TOP = MethodHandles.lookup().findVarHandle(LockFreeStack.class, "top", Element.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int ELIMINATION_SPINS = 64;
+
+    private static final class Element {
+        private final Object value;
+        private Element next;
+        // Stack size once this element is on top, makes size() a single read
+        private int size;
+
+        public Element(Object value) {
+            this.value = value;
+            next = null;
+        }
+    }
+
+    private volatile Element top;
+    private final AtomicReferenceArray<Element> eliminationSlots;
+
+    public LockFreeStack() {
+        this(0);
+    }
+
+    // eliminationWidth is the number of exchange slots, 0 disables elimination
+    public LockFreeStack(int eliminationWidth) {
+        if (eliminationWidth < 0) {
+            throw new IllegalArgumentException("Elimination width cannot be negative!");
+        }
+        top = null;
+        eliminationSlots = eliminationWidth > 0 ? new AtomicReferenceArray<>(eliminationWidth) : null;
+    }
+
+    @Override
+    public void push(T element) {
+        if (element == null) {
+            throw new IllegalArgumentException("Element cannot be null!");
+        }
+        Element e = new Element(element);
+        while (true) {
+            Element current = top;
+            e.next = current;
+            e.size = current == null ? 1 : current.size + 1;
+            if (TOP.compareAndSet(this, current, e)) {
+                return;
+            }
+            if (eliminationSlots != null && tryEliminatePush(e)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public T pop() {
+        T value = tryPop();
+        if (value == null) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        return value;
+    }
+
+    // Same as pop, but returns null instead of throwing when the stack is
+    // empty. Prefer it under concurrency, where isEmpty() followed by pop() is a race.
+    @SuppressWarnings("unchecked")
+    public T tryPop() {
+        while (true) {
+            Element current = top;
+            if (current == null) {
+                return null;
+            }
+            if (TOP.compareAndSet(this, current, current.next)) {
+                return (T) current.value;
+            }
+            if (eliminationSlots != null) {
+                Element eliminated = tryEliminatePop();
+                if (eliminated != null) {
+                    return (T) eliminated.value;
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        Element current = top;
+        if (current == null) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        return (T) current.value;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return top == null;
+    }
+
+    @Override
+    public int size() {
+        Element current = top;
+        return current == null ? 0 : current.size;
+    }
+
+    // The pusher parks its element in a free slot for a few spins. A popper that
+    // clears the slot in the meantime has taken the element.
+    private boolean tryEliminatePush(Element e) {
+        int slot = ThreadLocalRandom.current().nextInt(eliminationSlots.length());
+        if (!eliminationSlots.compareAndSet(slot, null, e)) {
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; i++) {
+            if (eliminationSlots.get(slot) != e) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        // Withdraw the offer, failing means a popper took it at the last moment
+        return !eliminationSlots.compareAndSet(slot, e, null);
+    }
+
+    private Element tryEliminatePop() {
+        int slot = ThreadLocalRandom.current().nextInt(eliminationSlots.length());
+        Element e = eliminationSlots.get(slot);
+        if (e != null && eliminationSlots.compareAndSet(slot, e, null)) {
+            return e;
+        }
+        return null;
+    }
+}
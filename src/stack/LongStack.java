@@ -0,0 +1,70 @@
+package stack;
+
+import java.util.Arrays;
+
+// long specialization of ArrayStack: values are stored unboxed, so push/pop
+// never allocate once the array has grown to its working size.
+public class LongStack {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] elements;
+    private int size;
+    private final int minCapacity;
+    private final boolean shrinkable;
+
+    public LongStack() {
+        this(DEFAULT_CAPACITY, false);
+    }
+
+    public LongStack(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    public LongStack(int initialCapacity, boolean shrinkable) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        elements = new long[initialCapacity];
+        size = 0;
+        minCapacity = initialCapacity;
+        this.shrinkable = shrinkable;
+    }
+
+    public void push(long element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, ArrayStack.grownCapacity(elements.length));
+        }
+        elements[size++] = element;
+    }
+
+    public long pop() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        long value = elements[--size];
+        if (shrinkable && size <= elements.length >> 2 && elements.length >> 1 >= minCapacity) {
+            elements = Arrays.copyOf(elements, elements.length >> 1);
+        }
+        return value;
+    }
+
+    public long peek() {
+        if (isEmpty()) {
+            throw new EmptyStackException("Stack is empty!");
+        }
+        return elements[size - 1];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void trimToSize() {
+        elements = Arrays.copyOf(elements, Math.max(size, 1));
+    }
+}
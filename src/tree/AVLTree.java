@@ -1,13 +1,128 @@
 package tree;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
 public class AVLTree implements Tree<Integer, AVLTree.Node> {
 
+    // An AVL tree with 2^31 nodes is at most ~45 levels deep
+    private static final int MAX_HEIGHT = 64;
+    // Ranges smaller than this are built on the current thread
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
     private Node root;
+    private final Node[] path;
+    // Results of split, only set while removeRange runs
+    private Node splitLeft, splitRight;
+    // Per-operation counters, only reported when stats are enabled
     private int rotationsCount;
+    private int comparisonsCount;
+    private int rebalancesCount;
+    private TreeStats stats;
 
     public AVLTree() {
         root = null;
+        path = new Node[MAX_HEIGHT];
+        splitLeft = splitRight = null;
         rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+        stats = null;
+    }
+
+    // Records rotations, comparisons, depth and rebalances of every insert,
+    // remove and find into the given stats; null (the default) disables it.
+    public void setStats(TreeStats stats) {
+        this.stats = stats;
+    }
+
+    // Bulk loading: builds a perfectly balanced tree from strictly increasing
+    // values in O(n), without comparisons between values or rotations.
+    public static AVLTree fromSorted(int[] values) {
+        checkSorted(values);
+        AVLTree tree = new AVLTree();
+        tree.root = tree.buildBalanced(values, 0, values.length - 1);
+        return tree;
+    }
+
+    // Same as fromSorted(int[]), reading exactly size values from the iterator
+    // in a single pass without buffering them.
+    public static AVLTree fromSorted(Iterator<Integer> values, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative!");
+        }
+        AVLTree tree = new AVLTree();
+        tree.root = tree.buildBalanced(values, size, new Integer[1]);
+        return tree;
+    }
+
+    // Same as fromSorted(int[]), building the left and right halves of big
+    // ranges in parallel on the common ForkJoin pool.
+    public static AVLTree fromSortedParallel(int[] values) {
+        checkSorted(values);
+        AVLTree tree = new AVLTree();
+        tree.root = ForkJoinPool.commonPool()
+                .invoke(ForkJoinTask.adapt(() -> tree.buildBalancedParallel(values, 0, values.length - 1)));
+        return tree;
+    }
+
+    private static void checkSorted(int[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (values[i - 1] >= values[i]) {
+                throw new IllegalArgumentException("Values must be sorted in ascending order without duplicates!");
+            }
+        }
+    }
+
+    private Node buildBalanced(int[] values, int lo, int hi) {
+        if (lo > hi) return null;
+        int mid = (lo + hi) >>> 1;
+        Node node = new Node(values[mid]);
+        node.left = buildBalanced(values, lo, mid - 1);
+        node.right = buildBalanced(values, mid + 1, hi);
+        Node.update(node);
+        return node;
+    }
+
+    // Builds the subtree in order: left half first, then the node, then the
+    // right half, so values are consumed exactly in iteration order.
+    private Node buildBalanced(Iterator<Integer> values, int size, Integer[] previous) {
+        if (size == 0) return null;
+        int leftSize = (size - 1) / 2;
+        Node left = buildBalanced(values, leftSize, previous);
+        if (!values.hasNext()) {
+            throw new IllegalArgumentException("Iterator has fewer values than the given size!");
+        }
+        Integer value = values.next();
+        if (previous[0] != null && previous[0] >= value) {
+            throw new IllegalArgumentException("Values must be sorted in ascending order without duplicates!");
+        }
+        previous[0] = value;
+        Node node = new Node(value);
+        node.left = left;
+        node.right = buildBalanced(values, size - 1 - leftSize, previous);
+        Node.update(node);
+        return node;
+    }
+
+    // Builds both halves of large ranges as parallel tasks, small ones sequentially
+    private Node buildBalancedParallel(int[] values, int lo, int hi) {
+        if (hi - lo < PARALLEL_THRESHOLD) {
+            return buildBalanced(values, lo, hi);
+        }
+        int mid = (lo + hi) >>> 1;
+        ForkJoinTask<Node> left = ForkJoinTask.adapt(() -> buildBalancedParallel(values, lo, mid - 1));
+        ForkJoinTask<Node> right = ForkJoinTask.adapt(() -> buildBalancedParallel(values, mid + 1, hi));
+        ForkJoinTask.invokeAll(left, right);
+        Node node = new Node(values[mid]);
+        node.left = left.join();
+        node.right = right.join();
+        Node.update(node);
+        return node;
     }
 
     // Left element of root now becomes root
@@ -16,8 +131,8 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
         node.left = left.right;
         left.right = node;
 
-        Node.updateHeight(node);
-        Node.updateHeight(left);
+        Node.update(node);
+        Node.update(left);
 
         rotationsCount++;
         return left;
@@ -29,21 +144,22 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
         node.right = right.left;
         right.left = node;
 
-        Node.updateHeight(node);
-        Node.updateHeight(right);
+        Node.update(node);
+        Node.update(right);
 
         rotationsCount++;
         return right;
     }
 
     private Node rebalance(Node node) {
-        Node.updateHeight(node);
+        Node.update(node);
         int balance = Node.balanceFactor(node);
         // Positive unbalance in root tree (right has more levels than left)
         // and not positive (un)balance in right subtree requires double rotation.
         // The same happens with negative unbalance in root tree. If the left
         // subtree doesn't have a negative (un)balance too, we rotate two times.
         if (isUnbalancePositive(balance)) {
+            rebalancesCount++;
             int rightBalance = Node.balanceFactor(node.right);
             if (!isBalanceFactorPositive(rightBalance)) {
                 // Rotation necessary to allow balance (RL -> Right Rotation and Left Rotation)
@@ -51,6 +167,7 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
             }
             node = rotateLeft(node);
         } else if (isUnbalanceNegative(balance)) {
+            rebalancesCount++;
             int leftBalance = Node.balanceFactor(node.left);
             if (!isBalanceFactorNegative(leftBalance)) {
                 // Rotation necessary to allow balance (LR -> Left Rotation and Right Rotation)
@@ -63,123 +180,509 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
 
     @Override
     public void insert(Integer value) {
-        rotationsCount = 0;
-        root = insertRecursive(root, value);
-        System.out.printf("Rotations made in insertion: %d%n", rotationsCount);
+        resetCounters();
+        int depth = insertIterative(value);
+        recordOperation(TreeStats.Operation.INSERT, depth);
     }
 
-    private Node insertRecursive(Node node, Integer value) {
-        if (isNodeEmpty(node)) return new Node(value);
-
-        if (isValueLessThanNode(node, value)) {
-            node.left = insertRecursive(node.left, value);
-        } else if (isValueGreaterThanNode(node, value)) {
-            node.right = insertRecursive(node.right, value);
+    // Returns the number of nodes visited on the way down
+    private int insertIterative(Integer value) {
+        if (isNodeEmpty(root)) {
+            root = new Node(value);
+            return 0;
+        }
+        int depth = 0;
+        Node node = root;
+        while (!isNodeEmpty(node)) {
+            path[depth++] = node;
+            if (isValueLessThanNode(node, value)) {
+                node = node.left;
+            } else if (isValueGreaterThanNode(node, value)) {
+                node = node.right;
+            } else {
+                clearPath(depth);
+                return depth; // Number already exists
+            }
+        }
+        Node parent = path[depth - 1];
+        if (isValueLessThanNode(parent, value)) {
+            parent.left = new Node(value);
         } else {
-            return node; // Number already exists
+            parent.right = new Node(value);
         }
-        return rebalance(node);
+        rebalancePath(depth);
+        return depth;
     }
 
     @Override
     public Node find(Integer value) {
-        return findRecursive(root, value);
+        resetCounters();
+        int depth = 0;
+        Node node = root;
+        while (!isNodeEmpty(node)) {
+            depth++;
+            if (isValueEqualToNode(node, value)) break;
+            node = isValueLessThanNode(node, value) ? node.left : node.right;
+        }
+        recordOperation(TreeStats.Operation.FIND, depth);
+        return node;
     }
 
-    private Node findRecursive(Node node, Integer value) {
-        if (isNodeEmpty(node)) return null;
-        if (isValueEqualToNode(node, value)) return node;
+    @Override
+    public void remove(Integer value) {
+        resetCounters();
+        int depth = removeIterative(value);
+        recordOperation(TreeStats.Operation.REMOVE, depth);
+    }
 
-        return isValueLessThanNode(node, value)
-                ? findRecursive(node.left, value)
-                : findRecursive(node.right, value);
+    // Returns the number of nodes visited while searching for the value
+    private int removeIterative(Integer value) {
+        int depth = 0;
+        Node node = root;
+        while (!isNodeEmpty(node) && !isValueEqualToNode(node, value)) {
+            path[depth++] = node;
+            node = isValueLessThanNode(node, value) ? node.left : node.right;
+        }
+        if (isNodeEmpty(node)) {
+            clearPath(depth);
+            return depth;
+        }
+        path[depth++] = node;
+        int searchDepth = depth;
+
+        // Take the smallest value in the RIGHT subtree to replace the removed parent.
+        // Another option would be to pick the biggest value int the left subtree.
+        // The node that held the smallest value is then unlinked instead.
+        if (!isNodeEmpty(node.left) && !isNodeEmpty(node.right)) {
+            Node smallest = node.right;
+            path[depth++] = smallest;
+            while (!isNodeEmpty(smallest.left)) {
+                smallest = smallest.left;
+                path[depth++] = smallest;
+            }
+            node.value = smallest.value;
+            node = smallest;
+        }
+
+        Node child = isNodeEmpty(node.left) ? node.right : node.left;
+        depth--;
+        path[depth] = null;
+        if (depth == 0) {
+            root = child;
+        } else {
+            replaceChild(path[depth - 1], node, child);
+        }
+        rebalancePath(depth);
+        return searchDepth;
     }
 
     @Override
-    public void remove(Integer value) {
-        rotationsCount = 0;
-        root = deleteRecursive(root, value);
-        System.out.printf("Rotations made in removal: %d%n", rotationsCount);
+    public void rangeScan(Integer lo, Integer hi, Consumer<? super Integer> action) {
+        rangeScan(root, lo, hi, action);
     }
 
-    private Node deleteRecursive(Node node, Integer value) {
-        if (isNodeEmpty(node)) return null;
+    private void rangeScan(Node node, Integer lo, Integer hi, Consumer<? super Integer> action) {
+        if (isNodeEmpty(node)) return;
+        boolean aboveLo = isValueLessThanNode(node, lo);
+        boolean belowHi = isValueGreaterThanNode(node, hi);
+        if (aboveLo) rangeScan(node.left, lo, hi, action);
+        if (!isValueGreaterThanNode(node, lo) && !isValueLessThanNode(node, hi)) action.accept(node.value);
+        if (belowHi) rangeScan(node.right, lo, hi, action);
+    }
+
+    // Splits the tree into (< lo), [lo, hi] and (> hi) and joins the outer parts
+    // back together: O(log n) regardless of how many values are dropped.
+    // Recorded as one remove whose depth is the length of both split paths.
+    @Override
+    public void removeRange(Integer lo, Integer hi) {
+        if (lo > hi) return;
+        resetCounters();
+        int depth = split(root, lo, false);
+        Node less = splitLeft;
+        depth += split(splitRight, hi, true);
+        root = join(less, splitRight);
+        splitLeft = splitRight = null;
+        recordOperation(TreeStats.Operation.REMOVE, depth);
+    }
 
-        if (isValueLessThanNode(node, value)) {
-            node.left = deleteRecursive(node.left, value);
-        } else if (isValueGreaterThanNode(node, value)) {
-            node.right = deleteRecursive(node.right, value);
+    // splitLeft receives the values before key (up to and including key when
+    // inclusive), splitRight the rest. Both halves are valid AVL trees.
+    // Returns the number of nodes on the split path.
+    private int split(Node node, Integer key, boolean inclusive) {
+        if (isNodeEmpty(node)) {
+            splitLeft = splitRight = null;
+            return 0;
+        }
+        boolean goesLeft = inclusive ? !isValueLessThanNode(node, key) : isValueGreaterThanNode(node, key);
+        int depth;
+        if (goesLeft) {
+            depth = split(node.right, key, inclusive);
+            splitLeft = join(node.left, node, splitLeft);
         } else {
-            if (isNodeEmpty(node.left) || isNodeEmpty(node.right)) {
-                node = isNodeEmpty(node.left) ? node.right : node.left;
+            depth = split(node.left, key, inclusive);
+            splitRight = join(splitRight, node, node.right);
+        }
+        return depth + 1;
+    }
+
+    // Joins two trees whose values are all smaller/bigger than each other
+    private Node join(Node left, Node right) {
+        if (isNodeEmpty(left)) return right;
+        if (isNodeEmpty(right)) return left;
+        Node smallest = mostLeftChild(right);
+        right = removeSmallest(right);
+        return join(left, smallest, right);
+    }
+
+    private Node mostLeftChild(Node node) {
+        while (!isNodeEmpty(node.left)) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node removeSmallest(Node node) {
+        if (isNodeEmpty(node.left)) return node.right;
+        node.left = removeSmallest(node.left);
+        return rebalance(node);
+    }
+
+    // Joins left < middle < right, descending the spine of the taller tree until
+    // the heights are within one of each other.
+    private Node join(Node left, Node middle, Node right) {
+        int leftHeight = Node.height(left);
+        int rightHeight = Node.height(right);
+        if (leftHeight > rightHeight + 1) {
+            left.right = join(left.right, middle, right);
+            return rebalance(left);
+        }
+        if (rightHeight > leftHeight + 1) {
+            right.left = join(left, middle, right.left);
+            return rebalance(right);
+        }
+        middle.left = left;
+        middle.right = right;
+        Node.update(middle);
+        return middle;
+    }
+
+    // Rebalances the recorded root-to-leaf path bottom-up. Once a subtree keeps
+    // both its root and its height no rotation can happen above it, so the
+    // remaining ancestors only need their subtree size refreshed.
+    private void rebalancePath(int depth) {
+        int i = depth - 1;
+        while (i >= 0) {
+            Node node = path[i--];
+            int oldHeight = node.height;
+            Node subRoot = rebalance(node);
+            if (subRoot == node && node.height == oldHeight) {
+                break;
+            }
+            if (i < 0) {
+                root = subRoot;
             } else {
-                node = reorganizeSubTree(node); // In case of 2 children
+                replaceChild(path[i], node, subRoot);
             }
         }
-        node = !isNodeEmpty(node) ? rebalance(node) : null;
-        return node;
+        while (i >= 0) {
+            Node.updateSize(path[i--]);
+        }
+        clearPath(depth);
     }
 
-    // Take the smallest value in the RIGHT subtree to replace the removed parent.
-    // Another option would be to pick the biggest value int the left subtree.
-    // After the process we clean the right/left subtree by removing the old child.
-    private Node reorganizeSubTree(Node root) {
-        Integer smallestValue = mostLeftChild(root.right).value;
-        root.value = smallestValue;
-        root.right = deleteRecursive(root.right, smallestValue);
-        return root;
+    private void replaceChild(Node parent, Node oldChild, Node newChild) {
+        if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
     }
 
-    private Node mostLeftChild(Node node) {
-        return isNodeEmpty(node.left) ? node : mostLeftChild(node.left);
+    // Drops the references kept in the path buffer so removed nodes can be collected
+    private void clearPath(int depth) {
+        Arrays.fill(path, 0, depth, null);
+    }
+
+    public int size() {
+        return Node.size(root);
+    }
+
+    public boolean isEmpty() {
+        return isNodeEmpty(root);
+    }
+
+    // Number of levels, 0 for an empty tree
+    public int height() {
+        return Node.height(root) + 1;
+    }
+
+    // Number of values strictly less than the given one
+    public int rank(Integer value) {
+        int rank = 0;
+        Node node = root;
+        while (!isNodeEmpty(node)) {
+            if (isValueGreaterThanNode(node, value)) {
+                rank += Node.size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    // The k-th smallest value, counting from 0
+    public Integer select(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("Index out of boundaries!");
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = Node.size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k > leftSize) {
+                k -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+    }
+
+    // Number of values in [lo, hi]. Two rank descents, nothing is recorded
+    // into the stats.
+    public int countInRange(Integer lo, Integer hi) {
+        if (lo > hi) return 0;
+        int upTo = hi == Integer.MAX_VALUE ? size() : rank(hi + 1);
+        return upTo - rank(lo);
+    }
+
+    // Greatest value <= the given one, or null
+    public Integer floor(Integer value) {
+        Node node = root;
+        Integer candidate = null;
+        while (!isNodeEmpty(node)) {
+            if (isValueEqualToNode(node, value)) return node.value;
+            if (isValueLessThanNode(node, value)) {
+                node = node.left;
+            } else {
+                candidate = node.value;
+                node = node.right;
+            }
+        }
+        return candidate;
+    }
+
+    // Smallest value >= the given one, or null
+    public Integer ceiling(Integer value) {
+        Node node = root;
+        Integer candidate = null;
+        while (!isNodeEmpty(node)) {
+            if (isValueEqualToNode(node, value)) return node.value;
+            if (isValueGreaterThanNode(node, value)) {
+                node = node.right;
+            } else {
+                candidate = node.value;
+                node = node.left;
+            }
+        }
+        return candidate;
+    }
+
+    // Smallest value > the given one, or null
+    public Integer successor(Integer value) {
+        Node node = root;
+        Integer candidate = null;
+        while (!isNodeEmpty(node)) {
+            if (isValueLessThanNode(node, value)) {
+                candidate = node.value;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return candidate;
+    }
+
+    // Greatest value < the given one, or null
+    public Integer predecessor(Integer value) {
+        Node node = root;
+        Integer candidate = null;
+        while (!isNodeEmpty(node)) {
+            if (isValueGreaterThanNode(node, value)) {
+                candidate = node.value;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return candidate;
     }
 
     @Override
-    public String traverseInOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traverseInOrder(root, sb);
-        return sb.toString();
+    public void forEachInOrder(Consumer<? super Integer> action) {
+        forEachInOrder(root, action);
     }
 
-    private StringBuilder traverseInOrder(Node node, StringBuilder sb) {
+    private void forEachInOrder(Node node, Consumer<? super Integer> action) {
         if (!isNodeEmpty(node)) {
-            traverseInOrder(node.left, sb);
-            sb.append(String.format("%d ", node.value));
-            traverseInOrder(node.right, sb);
+            forEachInOrder(node.left, action);
+            action.accept(node.value);
+            forEachInOrder(node.right, action);
         }
-        return sb;
     }
 
     @Override
-    public String traversePreOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traversePreOrder(root, sb);
-        return sb.toString();
+    public void forEachPreOrder(Consumer<? super Integer> action) {
+        forEachPreOrder(root, action);
     }
 
-    private StringBuilder traversePreOrder(Node node, StringBuilder sb) {
+    private void forEachPreOrder(Node node, Consumer<? super Integer> action) {
         if (!isNodeEmpty(node)) {
-            sb.append(String.format("%d ", node.value));
-            traversePreOrder(node.left, sb);
-            traversePreOrder(node.right, sb);
+            action.accept(node.value);
+            forEachPreOrder(node.left, action);
+            forEachPreOrder(node.right, action);
         }
-        return sb;
     }
 
     @Override
-    public String traversePostOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traversePostOrder(root, sb);
-        return sb.toString();
+    public void forEachPostOrder(Consumer<? super Integer> action) {
+        forEachPostOrder(root, action);
     }
 
-    private StringBuilder traversePostOrder(Node node, StringBuilder sb) {
+    private void forEachPostOrder(Node node, Consumer<? super Integer> action) {
         if (!isNodeEmpty(node)) {
-            traversePostOrder(node.left, sb);
-            traversePostOrder(node.right, sb);
-            sb.append(String.format("%d ", node.value));
+            forEachPostOrder(node.left, action);
+            forEachPostOrder(node.right, action);
+            action.accept(node.value);
+        }
+    }
+
+    // Morris traversals: O(1) auxiliary space. The right pointer of each
+    // in-order predecessor is temporarily threaded back to its successor and
+    // restored on the second visit, so the tree is only consistent again once
+    // the walk completes. Not safe while other threads read the tree. If the
+    // action throws, the walk still finishes (without calling the action) to
+    // restore every pointer before the exception is rethrown.
+    public void forEachInOrderMorris(Consumer<? super Integer> action) {
+        Throwable failure = null;
+        Node current = root;
+        while (!isNodeEmpty(current)) {
+            if (isNodeEmpty(current.left)) {
+                failure = visit(current, action, failure);
+                current = current.right;
+                continue;
+            }
+            Node predecessor = rightmostBeforeThread(current);
+            if (isNodeEmpty(predecessor.right)) {
+                predecessor.right = current;
+                current = current.left;
+            } else {
+                predecessor.right = null;
+                failure = visit(current, action, failure);
+                current = current.right;
+            }
+        }
+        rethrow(failure);
+    }
+
+    public void forEachPreOrderMorris(Consumer<? super Integer> action) {
+        Throwable failure = null;
+        Node current = root;
+        while (!isNodeEmpty(current)) {
+            if (isNodeEmpty(current.left)) {
+                failure = visit(current, action, failure);
+                current = current.right;
+                continue;
+            }
+            Node predecessor = rightmostBeforeThread(current);
+            if (isNodeEmpty(predecessor.right)) {
+                failure = visit(current, action, failure);
+                predecessor.right = current;
+                current = current.left;
+            } else {
+                predecessor.right = null;
+                current = current.right;
+            }
+        }
+        rethrow(failure);
+    }
+
+    // Rightmost node of the left subtree, stopping at an existing thread
+    private Node rightmostBeforeThread(Node node) {
+        Node predecessor = node.left;
+        while (!isNodeEmpty(predecessor.right) && predecessor.right != node) {
+            predecessor = predecessor.right;
+        }
+        return predecessor;
+    }
+
+    private Throwable visit(Node node, Consumer<? super Integer> action, Throwable failure) {
+        if (failure != null) return failure;
+        try {
+            action.accept(node.value);
+            return null;
+        } catch (RuntimeException | Error e) {
+            return e;
+        }
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure instanceof Error) throw (Error) failure;
+        if (failure != null) throw (RuntimeException) failure;
+    }
+
+    @Override
+    public Iterator<Integer> inOrderIterator() {
+        return new InOrderIterator();
+    }
+
+    // Keeps the pending ancestors in an array sized to the maximum AVL height,
+    // the tree must not be modified while iterating.
+    private class InOrderIterator implements Iterator<Integer> {
+        private final Node[] stack = new Node[MAX_HEIGHT];
+        private int depth = 0;
+
+        public InOrderIterator() {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            Node node = stack[--depth];
+            stack[depth] = null;
+            pushLeftBranch(node.right);
+            return node.value;
+        }
+
+        private void pushLeftBranch(Node node) {
+            while (!isNodeEmpty(node)) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    private void resetCounters() {
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+    }
+
+    private void recordOperation(TreeStats.Operation operation, int depth) {
+        TreeStats current = stats;
+        if (current != null) {
+            current.record(operation, rotationsCount, comparisonsCount, depth, rebalancesCount);
         }
-        return sb;
     }
 
     private boolean isUnbalancePositive(int balance) {
@@ -203,26 +706,32 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
     }
 
     private boolean isValueEqualToNode(Node node, Integer value) {
+        comparisonsCount++;
         return value.equals(node.value);
     }
 
     private boolean isValueLessThanNode(Node node, Integer value) {
+        comparisonsCount++;
         return value < node.value;
     }
 
     private boolean isValueGreaterThanNode(Node node, Integer value) {
+        comparisonsCount++;
         return value > node.value;
     }
 
     protected class Node {
         private Integer value;
         private Integer height;
+        // Number of nodes in the subtree rooted here, for the order statistics
+        private int size;
         private Node left;
         private Node right;
 
         public Node(Integer value) {
             this.value = value;
             height = 0;
+            size = 1;
             left = right = null;
         }
 
@@ -230,6 +739,19 @@ public class AVLTree implements Tree<Integer, AVLTree.Node> {
             return node != null ? node.height : -1;
         }
 
+        private static int size(Node node) {
+            return node != null ? node.size : 0;
+        }
+
+        public static void update(Node node) {
+            updateHeight(node);
+            updateSize(node);
+        }
+
+        public static void updateSize(Node node) {
+            node.size = size(node.left) + size(node.right) + 1;
+        }
+
         public static void updateHeight(Node node) {
             node.height = Math.max(height(node.left), height(node.right)) + 1;
         }
@@ -0,0 +1,505 @@
+package tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Sorted map on an AVL tree: each node carries its key and value, so lookups
+// and updates need a single descent. Keys are ordered naturally or by the given
+// comparator. The map built by integerKeys() also stores every key unboxed in
+// its node and compares plain ints, without compareTo calls or loads of the
+// Integer objects.
+//
+// As a Tree<K, V>, values are the keys: insert adds a key mapped to null and
+// find returns the value mapped to a key, so find cannot tell a key mapped to
+// null from a missing one. keyTree() is the key set as a Tree, whose find
+// returns the key itself like every other Tree.
+public class AVLTreeMap<K extends Comparable<K>, V> implements Tree<K, V> {
+
+    // An AVL tree with 2^31 nodes is at most ~45 levels deep
+    private static final int MAX_HEIGHT = 64;
+
+    private final Comparator<? super K> comparator;
+    private final boolean integerKeys;
+    private Node<K, V> root;
+    private int size;
+    private int modCount;
+    private final Node<K, V>[] path;
+
+    public AVLTreeMap() {
+        this(null, false);
+    }
+
+    public AVLTreeMap(Comparator<? super K> comparator) {
+        this(comparator, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AVLTreeMap(Comparator<? super K> comparator, boolean integerKeys) {
+        this.comparator = comparator;
+        this.integerKeys = integerKeys;
+        root = null;
+        size = 0;
+        modCount = 0;
+        path = (Node<K, V>[]) new Node<?, ?>[MAX_HEIGHT];
+    }
+
+    // Map over Integer keys in natural order, compared as primitive ints
+    public static <V> AVLTreeMap<Integer, V> integerKeys() {
+        return new AVLTreeMap<>(null, true);
+    }
+
+    public V get(K key) {
+        Node<K, V> node = findNode(key);
+        return node != null ? node.value : null;
+    }
+
+    public V getOrDefault(K key, V defaultValue) {
+        Node<K, V> node = findNode(key);
+        return node != null ? node.value : defaultValue;
+    }
+
+    public boolean containsKey(K key) {
+        return findNode(key) != null;
+    }
+
+    private Node<K, V> findNode(K key) {
+        int intKey = intKey(key);
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = compare(key, intKey, node);
+            if (cmp == 0) return node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    // Returns the previous value, or null when the key was absent
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        int intKey = intKey(key);
+        int depth = 0;
+        int cmp = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            cmp = compare(key, intKey, node);
+            if (cmp == 0) {
+                clearPath(depth);
+                V previous = node.value;
+                if (!onlyIfAbsent) {
+                    node.value = value;
+                }
+                return previous;
+            }
+            path[depth++] = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        attach(key, intKey, value, depth, cmp);
+        return null;
+    }
+
+    public V putIfAbsent(K key, V value) {
+        return computeIfAbsent(key, k -> value);
+    }
+
+    // Same contract as Map.computeIfAbsent: an absent key or a null value is
+    // replaced by the computed value unless it is null. The function runs
+    // before any path is recorded, so it may read the map and replace values;
+    // adding or removing keys in it throws ConcurrentModificationException.
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Node<K, V> node = findNode(key);
+        if (node != null && node.value != null) {
+            return node.value;
+        }
+        int expectedModCount = modCount;
+        V value = mappingFunction.apply(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException("Map modified by the mapping function!");
+        }
+        if (value == null) {
+            return null;
+        }
+        if (node != null) {
+            // Still linked: no key was added or removed meanwhile
+            node.value = value;
+        } else {
+            put(key, value, false);
+        }
+        return value;
+    }
+
+    // Links a new node below path[depth - 1], on the side given by cmp
+    private void attach(K key, int intKey, V value, int depth, int cmp) {
+        Node<K, V> created = new Node<>(key, intKey, value);
+        if (depth == 0) {
+            root = created;
+        } else if (cmp < 0) {
+            path[depth - 1].left = created;
+        } else {
+            path[depth - 1].right = created;
+        }
+        size++;
+        modCount++;
+        rebalancePath(depth);
+    }
+
+    // Returns the removed value, or null when the key was absent
+    public V removeKey(K key) {
+        int intKey = intKey(key);
+        int depth = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = compare(key, intKey, node);
+            if (cmp == 0) break;
+            path[depth++] = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        if (node == null) {
+            clearPath(depth);
+            return null;
+        }
+        V removed = node.value;
+        path[depth++] = node;
+
+        // With two children the smallest entry of the right subtree moves into
+        // this node and its own node, which has no left child, is unlinked.
+        if (node.left != null && node.right != null) {
+            Node<K, V> smallest = node.right;
+            path[depth++] = smallest;
+            while (smallest.left != null) {
+                smallest = smallest.left;
+                path[depth++] = smallest;
+            }
+            node.key = smallest.key;
+            node.intKey = smallest.intKey;
+            node.value = smallest.value;
+            node = smallest;
+        }
+
+        Node<K, V> child = node.left != null ? node.left : node.right;
+        depth--;
+        path[depth] = null;
+        if (depth == 0) {
+            root = child;
+        } else if (path[depth - 1].left == node) {
+            path[depth - 1].left = child;
+        } else {
+            path[depth - 1].right = child;
+        }
+        size--;
+        modCount++;
+        rebalancePath(depth);
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    // Adds key mapped to null unless it is already present
+    @Override
+    public void insert(K key) {
+        put(key, null, true);
+    }
+
+    // Returns the value mapped to key, see keyTree() for a presence test
+    @Override
+    public V find(K key) {
+        return get(key);
+    }
+
+    // View of the keys as a Tree, backed by this map: find returns the stored
+    // key when present and null otherwise, insert maps new keys to null
+    public Tree<K, K> keyTree() {
+        return new KeyTree();
+    }
+
+    private class KeyTree implements Tree<K, K> {
+
+        @Override
+        public void insert(K key) {
+            AVLTreeMap.this.insert(key);
+        }
+
+        @Override
+        public K find(K key) {
+            Node<K, V> node = findNode(key);
+            return node != null ? node.key : null;
+        }
+
+        @Override
+        public void remove(K key) {
+            removeKey(key);
+        }
+
+        @Override
+        public void rangeScan(K lo, K hi, Consumer<? super K> action) {
+            AVLTreeMap.this.rangeScan(lo, hi, action);
+        }
+
+        @Override
+        public void removeRange(K lo, K hi) {
+            AVLTreeMap.this.removeRange(lo, hi);
+        }
+
+        @Override
+        public void forEachInOrder(Consumer<? super K> action) {
+            AVLTreeMap.this.forEachInOrder(action);
+        }
+
+        @Override
+        public void forEachPreOrder(Consumer<? super K> action) {
+            AVLTreeMap.this.forEachPreOrder(action);
+        }
+
+        @Override
+        public void forEachPostOrder(Consumer<? super K> action) {
+            AVLTreeMap.this.forEachPostOrder(action);
+        }
+
+        @Override
+        public Iterator<K> inOrderIterator() {
+            return AVLTreeMap.this.inOrderIterator();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        removeKey(key);
+    }
+
+    @Override
+    public void rangeScan(K lo, K hi, Consumer<? super K> action) {
+        rangeScan(root, lo, intKey(lo), hi, intKey(hi), (key, value) -> action.accept(key));
+    }
+
+    // Visits every entry with a key in [lo, hi] in key order
+    public void forEachInRange(K lo, K hi, BiConsumer<? super K, ? super V> action) {
+        rangeScan(root, lo, intKey(lo), hi, intKey(hi), action);
+    }
+
+    private void rangeScan(Node<K, V> node, K lo, int intLo, K hi, int intHi,
+                           BiConsumer<? super K, ? super V> action) {
+        if (node == null) return;
+        int cmpLo = compare(lo, intLo, node);
+        int cmpHi = compare(hi, intHi, node);
+        if (cmpLo < 0) rangeScan(node.left, lo, intLo, hi, intHi, action);
+        if (cmpLo <= 0 && cmpHi >= 0) action.accept(node.key, node.value);
+        if (cmpHi > 0) rangeScan(node.right, lo, intLo, hi, intHi, action);
+    }
+
+    // The keys are collected first and removed individually: O(k log n)
+    @Override
+    public void removeRange(K lo, K hi) {
+        List<K> inRange = new ArrayList<>();
+        rangeScan(lo, hi, inRange::add);
+        for (K key : inRange) {
+            removeKey(key);
+        }
+    }
+
+    // Visits every entry in key order
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEachInOrder(root, action);
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super K> action) {
+        forEachInOrder(root, (key, value) -> action.accept(key));
+    }
+
+    private void forEachInOrder(Node<K, V> node, BiConsumer<? super K, ? super V> action) {
+        if (node == null) return;
+        forEachInOrder(node.left, action);
+        action.accept(node.key, node.value);
+        forEachInOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super K> action) {
+        forEachPreOrder(root, action);
+    }
+
+    private void forEachPreOrder(Node<K, V> node, Consumer<? super K> action) {
+        if (node == null) return;
+        action.accept(node.key);
+        forEachPreOrder(node.left, action);
+        forEachPreOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super K> action) {
+        forEachPostOrder(root, action);
+    }
+
+    private void forEachPostOrder(Node<K, V> node, Consumer<? super K> action) {
+        if (node == null) return;
+        forEachPostOrder(node.left, action);
+        forEachPostOrder(node.right, action);
+        action.accept(node.key);
+    }
+
+    // Iterates the keys; the map must not be modified while iterating
+    @Override
+    public Iterator<K> inOrderIterator() {
+        return new InOrderIterator();
+    }
+
+    private class InOrderIterator implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        private final Node<K, V>[] stack = (Node<K, V>[]) new Node<?, ?>[MAX_HEIGHT];
+        private int depth = 0;
+
+        public InOrderIterator() {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            Node<K, V> node = stack[--depth];
+            stack[depth] = null;
+            pushLeftBranch(node.right);
+            return node.key;
+        }
+
+        private void pushLeftBranch(Node<K, V> node) {
+            while (node != null) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    // Left element of root now becomes root
+    private Node<K, V> rotateRight(Node<K, V> node) {
+        Node<K, V> left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        Node.updateHeight(node);
+        Node.updateHeight(left);
+        return left;
+    }
+
+    // Right element of root now becomes root
+    private Node<K, V> rotateLeft(Node<K, V> node) {
+        Node<K, V> right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        Node.updateHeight(node);
+        Node.updateHeight(right);
+        return right;
+    }
+
+    // Same rules as AVLTree.rebalance
+    private Node<K, V> rebalance(Node<K, V> node) {
+        Node.updateHeight(node);
+        int balance = Node.balanceFactor(node);
+        if (balance > 1) {
+            if (Node.balanceFactor(node.right) < 0) {
+                node.right = rotateRight(node.right);
+            }
+            node = rotateLeft(node);
+        } else if (balance < -1) {
+            if (Node.balanceFactor(node.left) > 0) {
+                node.left = rotateLeft(node.left);
+            }
+            node = rotateRight(node);
+        }
+        return node;
+    }
+
+    // Walks the recorded root-to-leaf path bottom-up, stopping as soon as a
+    // subtree keeps both its root and its height, since nothing above changes.
+    private void rebalancePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<K, V> node = path[i];
+            path[i] = null;
+            int oldHeight = node.height;
+            Node<K, V> subRoot = rebalance(node);
+            if (subRoot == node && node.height == oldHeight) {
+                clearPath(i);
+                return;
+            }
+            if (i == 0) {
+                root = subRoot;
+            } else if (path[i - 1].left == node) {
+                path[i - 1].left = subRoot;
+            } else {
+                path[i - 1].right = subRoot;
+            }
+        }
+    }
+
+    private int intKey(K key) {
+        return integerKeys ? (Integer) key : 0;
+    }
+
+    // Negative when key sorts before the key of node
+    private int compare(K key, int intKey, Node<K, V> node) {
+        if (integerKeys) return Integer.compare(intKey, node.intKey);
+        if (comparator != null) return comparator.compare(key, node.key);
+        return key.compareTo(node.key);
+    }
+
+    private void clearPath(int depth) {
+        Arrays.fill(path, 0, depth, null);
+    }
+
+    private static class Node<K, V> {
+        private K key;
+        // Copy of the key for maps built by integerKeys(), 0 otherwise
+        private int intKey;
+        private V value;
+        private int height;
+        private Node<K, V> left;
+        private Node<K, V> right;
+
+        public Node(K key, int intKey, V value) {
+            this.key = key;
+            this.intKey = intKey;
+            this.value = value;
+            height = 0;
+            left = right = null;
+        }
+
+        private static int height(Node<?, ?> node) {
+            return node != null ? node.height : -1;
+        }
+
+        public static void updateHeight(Node<?, ?> node) {
+            node.height = Math.max(height(node.left), height(node.right)) + 1;
+        }
+
+        public static int balanceFactor(Node<?, ?> node) {
+            return height(node.right) - height(node.left);
+        }
+    }
+}
@@ -1,128 +1,342 @@
 package tree;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
 public class BinaryTree<T extends Comparable<T>, E> implements Tree<T, E> {
 
     private Node root;
+    // Results of split, only set while removeRange runs
+    private Node splitLeft, splitRight;
+    // Per-operation counter, only reported when stats are enabled
+    private int comparisonsCount;
+    private TreeStats stats;
 
     public BinaryTree() {
         root = null;
+        splitLeft = splitRight = null;
+        comparisonsCount = 0;
+        stats = null;
     }
 
-    @Override
-    public void insert(T value) {
-        root = insertRecursive(root, value);
+    // Records comparisons and depth of every find into the given stats; null
+    // (the default) disables it. The tree never rotates.
+    public void setStats(TreeStats stats) {
+        this.stats = stats;
     }
 
-    private Node insertRecursive(Node current, T value) {
-        if (isNodeEmpty(current)) return new Node(value);
-
-        if (isValueLessThanNode(current, value)) {
-            current.left = insertRecursive(current.left, value);
-        } else if (isValueGreaterThanNode(current, value)) {
-            current.right = insertRecursive(current.right, value);
+    @Override
+    public void insert(T value) {
+        if (isNodeEmpty(root)) {
+            root = new Node(value);
+            return;
+        }
+        Node current = root;
+        while (true) {
+            if (isValueLessThanNode(current, value)) {
+                if (isNodeEmpty(current.left)) {
+                    current.left = new Node(value);
+                    return;
+                }
+                current = current.left;
+            } else if (isValueGreaterThanNode(current, value)) {
+                if (isNodeEmpty(current.right)) {
+                    current.right = new Node(value);
+                    return;
+                }
+                current = current.right;
+            } else {
+                return; // Value already exists
+            }
         }
-        return current;
     }
 
     @Override
     public E find(T value) {
-        return findRecursive(root, value);
+        comparisonsCount = 0;
+        int depth = 0;
+        Node current = root;
+        while (!isNodeEmpty(current)) {
+            depth++;
+            if (isValueEqualToNode(current, value)) break;
+            current = isValueLessThanNode(current, value) ? current.left : current.right;
+        }
+        TreeStats currentStats = stats;
+        if (currentStats != null) {
+            currentStats.record(TreeStats.Operation.FIND, 0, comparisonsCount, depth, 0);
+        }
+        return (E) current;
     }
 
-    private E findRecursive(Node current, T value) {
-        if (isNodeEmpty(current)) return null;
-        if (isValueEqualToNode(current, value)) return (E) current;
+    @Override
+    public void remove(T value) {
+        Node parent = null;
+        Node current = root;
+        while (!isNodeEmpty(current) && !isValueEqualToNode(current, value)) {
+            parent = current;
+            current = isValueLessThanNode(current, value) ? current.left : current.right;
+        }
+        if (isNodeEmpty(current)) return;
 
-        return isValueLessThanNode(current, value)
-                ? findRecursive(current.left, value)
-                : findRecursive(current.right, value);
+        if (!isNodeEmpty(current.left) && !isNodeEmpty(current.right)) {
+            // In case of 2 children, take the smallest value in the RIGHT subtree
+            // to replace the removed one and unlink that node instead.
+            parent = current;
+            Node smallest = current.right;
+            while (!isNodeEmpty(smallest.left)) {
+                parent = smallest;
+                smallest = smallest.left;
+            }
+            current.value = smallest.value;
+            current = smallest;
+        }
+
+        Node child = isNodeEmpty(current.left) ? current.right : current.left;
+        if (isNodeEmpty(parent)) {
+            root = child;
+        } else if (parent.left == current) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
     }
 
     @Override
-    public void remove(T value) {
-        root = removeRecursive(root, value);
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while (!isNodeEmpty(node) || !stack.isEmpty()) {
+            while (!isNodeEmpty(node)) {
+                if (isValueGreaterThanNode(node, lo)) {
+                    node = node.right; // Whole left subtree is below the range
+                } else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+            if (stack.isEmpty()) return;
+            node = stack.pop();
+            if (isValueLessThanNode(node, hi)) return;
+            action.accept(node.value);
+            node = node.right;
+        }
     }
 
-    private Node removeRecursive(Node current, T value) {
-        if (isNodeEmpty(current)) return null;
+    // Splits the tree into (< lo), [lo, hi] and (> hi) and joins the outer parts
+    // under the smallest value of the last one, so the tree grows by at most
+    // one level instead of by the height of a part: O(height) pointer changes.
+    @Override
+    public void removeRange(T lo, T hi) {
+        if (lo.compareTo(hi) > 0) return;
+        split(root, lo, false);
+        Node less = splitLeft;
+        split(splitRight, hi, true);
+        Node greater = splitRight;
+        splitLeft = splitRight = null;
+        if (isNodeEmpty(less) || isNodeEmpty(greater)) {
+            root = isNodeEmpty(less) ? greater : less;
+            return;
+        }
+        Node smallest = greater;
+        Node parent = null;
+        while (!isNodeEmpty(smallest.left)) {
+            parent = smallest;
+            smallest = smallest.left;
+        }
+        if (parent != null) {
+            parent.left = smallest.right;
+            smallest.right = greater;
+        }
+        smallest.left = less;
+        root = smallest;
+    }
 
-        if (isValueEqualToNode(current, value)) {
-            if (isNodeEmpty(current.left) || isNodeEmpty(current.right)) {
-                current = isNodeEmpty(current.left) ? current.right : current.left;
+    // splitLeft receives the values before key (up to and including key when
+    // inclusive), splitRight the rest. Nodes keep their relative order, the
+    // left part grows along its right spine and the right part along its left.
+    private void split(Node node, T key, boolean inclusive) {
+        Node leftRoot = null, leftTail = null;
+        Node rightRoot = null, rightTail = null;
+        while (!isNodeEmpty(node)) {
+            boolean goesLeft = inclusive ? !isValueLessThanNode(node, key) : isValueGreaterThanNode(node, key);
+            if (goesLeft) {
+                if (isNodeEmpty(leftTail)) leftRoot = node;
+                else leftTail.right = node;
+                leftTail = node;
+                node = node.right;
+                leftTail.right = null;
             } else {
-                current = reorganizeSubTree(current); // In case of 2 children
+                if (isNodeEmpty(rightTail)) rightRoot = node;
+                else rightTail.left = node;
+                rightTail = node;
+                node = node.left;
+                rightTail.left = null;
             }
-            return current;
         }
+        splitLeft = leftRoot;
+        splitRight = rightRoot;
+    }
 
-        if (isValueLessThanNode(current, value)) {
-            current.left = removeRecursive(current.left, value);
-            return current;
+    // Traversals use an explicit stack so a degenerate (list shaped) tree is
+    // not limited by the thread stack size.
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while (!isNodeEmpty(node) || !stack.isEmpty()) {
+            while (!isNodeEmpty(node)) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            action.accept(node.value);
+            node = node.right;
         }
-        current.right = removeRecursive(current.right, value);
-        return current;
     }
 
-    // Take the smallest value in the RIGHT subtree to replace the removed parent.
-    // Another option would be to pick the biggest value int the left subtree.
-    // After the process we clean the right/left subtree by removing the old child.
-    private Node reorganizeSubTree(Node root) {
-        T smallestValue = mostLeftChild(root.right).value;
-        root.value = smallestValue;
-        root.right = removeRecursive(root.right, smallestValue);
-        return root;
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        if (!isNodeEmpty(root)) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            action.accept(node.value);
+            if (!isNodeEmpty(node.right)) stack.push(node.right);
+            if (!isNodeEmpty(node.left)) stack.push(node.left);
+        }
     }
 
-    private Node mostLeftChild(Node root) {
-        return isNodeEmpty(root.left) ? root : mostLeftChild(root.left);
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        Node lastVisited = null;
+        while (!isNodeEmpty(node) || !stack.isEmpty()) {
+            while (!isNodeEmpty(node)) {
+                stack.push(node);
+                node = node.left;
+            }
+            Node top = stack.peek();
+            if (!isNodeEmpty(top.right) && top.right != lastVisited) {
+                node = top.right;
+            } else {
+                action.accept(top.value);
+                lastVisited = stack.pop();
+            }
+        }
     }
 
-    @Override
-    public String traverseInOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traverseInOrder(root, sb);
-        return sb.toString();
+    // Morris traversals: O(1) auxiliary space. The right pointer of each
+    // in-order predecessor is temporarily threaded back to its successor and
+    // restored on the second visit, so the tree is only consistent again once
+    // the walk completes. Not safe while other threads read the tree. If the
+    // action throws, the walk still finishes (without calling the action) to
+    // restore every pointer before the exception is rethrown.
+    public void forEachInOrderMorris(Consumer<? super T> action) {
+        Throwable failure = null;
+        Node current = root;
+        while (!isNodeEmpty(current)) {
+            if (isNodeEmpty(current.left)) {
+                failure = visit(current, action, failure);
+                current = current.right;
+                continue;
+            }
+            Node predecessor = rightmostBeforeThread(current);
+            if (isNodeEmpty(predecessor.right)) {
+                predecessor.right = current;
+                current = current.left;
+            } else {
+                predecessor.right = null;
+                failure = visit(current, action, failure);
+                current = current.right;
+            }
+        }
+        rethrow(failure);
     }
 
-    private StringBuilder traverseInOrder(Node node, StringBuilder sb) {
-        if (!isNodeEmpty(node)) {
-            traverseInOrder(node.left, sb);
-            sb.append(String.format("%d ", node.value));
-            traverseInOrder(node.right, sb);
+    public void forEachPreOrderMorris(Consumer<? super T> action) {
+        Throwable failure = null;
+        Node current = root;
+        while (!isNodeEmpty(current)) {
+            if (isNodeEmpty(current.left)) {
+                failure = visit(current, action, failure);
+                current = current.right;
+                continue;
+            }
+            Node predecessor = rightmostBeforeThread(current);
+            if (isNodeEmpty(predecessor.right)) {
+                failure = visit(current, action, failure);
+                predecessor.right = current;
+                current = current.left;
+            } else {
+                predecessor.right = null;
+                current = current.right;
+            }
         }
-        return sb;
+        rethrow(failure);
     }
 
-    @Override
-    public String traversePreOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traversePreOrder(root, sb);
-        return sb.toString();
+    // Rightmost node of the left subtree, stopping at an existing thread
+    private Node rightmostBeforeThread(Node node) {
+        Node predecessor = node.left;
+        while (!isNodeEmpty(predecessor.right) && predecessor.right != node) {
+            predecessor = predecessor.right;
+        }
+        return predecessor;
     }
 
-    private StringBuilder traversePreOrder(Node node, StringBuilder sb) {
-        if (!isNodeEmpty(node)) {
-            sb.append(String.format("%d ", node.value));
-            traversePreOrder(node.left, sb);
-            traversePreOrder(node.right, sb);
+    private Throwable visit(Node node, Consumer<? super T> action, Throwable failure) {
+        if (failure != null) return failure;
+        try {
+            action.accept(node.value);
+            return null;
+        } catch (RuntimeException | Error e) {
+            return e;
         }
-        return sb;
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure instanceof Error) throw (Error) failure;
+        if (failure != null) throw (RuntimeException) failure;
     }
 
     @Override
-    public String traversePostOrder() {
-        StringBuilder sb = new StringBuilder();
-        sb = traversePostOrder(root, sb);
-        return sb.toString();
+    public Iterator<T> inOrderIterator() {
+        return new InOrderIterator();
     }
 
-    private StringBuilder traversePostOrder(Node node, StringBuilder sb) {
-        if (!isNodeEmpty(node)) {
-            traversePostOrder(node.left, sb);
-            traversePostOrder(node.right, sb);
-            sb.append(String.format("%d ", node.value));
+    // The tree must not be modified while iterating
+    private class InOrderIterator implements Iterator<T> {
+        private final Deque<Node> stack = new ArrayDeque<>();
+
+        public InOrderIterator() {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            Node node = stack.pop();
+            pushLeftBranch(node.right);
+            return node.value;
+        }
+
+        private void pushLeftBranch(Node node) {
+            while (!isNodeEmpty(node)) {
+                stack.push(node);
+                node = node.left;
+            }
         }
-        return sb;
     }
 
     private boolean isNodeEmpty(Node current) {
@@ -130,14 +344,17 @@ public class BinaryTree<T extends Comparable<T>, E> implements Tree<T, E> {
     }
 
     private boolean isValueEqualToNode(Node current, T value) {
+        comparisonsCount++;
         return value.compareTo(current.value) == 0;
     }
 
     private boolean isValueLessThanNode(Node current, T value) {
+        comparisonsCount++;
         return value.compareTo(current.value) < 0;
     }
 
     private boolean isValueGreaterThanNode(Node current, T value) {
+        comparisonsCount++;
         return value.compareTo(current.value) > 0;
     }
 
@@ -0,0 +1,768 @@
+package tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Concurrent ordered set based on the optimistic AVL tree of Bronson, Casper,
+// Chafi and Olukotun ("A Practical Concurrent Binary Search Tree", PPoPP'10).
+//
+// Readers take no locks and write nothing shared: they descend hand-over-hand
+// and validate each step against the version of the node they came from. A
+// node's version only changes when a rotation moves it down (shrinks its key
+// range) or when it is unlinked, so readers retry only when a concurrent
+// rotation actually affected their path. Writers lock the few nodes they
+// change. Removing a node with two children only clears its present flag,
+// leaving a routing node that is spliced out later, once it has at most one
+// child. Balance is relaxed while updates are in flight and restored by the
+// updating threads afterwards.
+//
+// In-order traversal, the iterator and range operations are weakly consistent:
+// they never fail, visit values in increasing order without repeats, and see
+// every value that is present for the whole walk; values inserted or removed
+// meanwhile may or may not be seen. Each step is a validated successor search,
+// O(log n) per visited value. Pre- and post-order follow the current shape of
+// the tree and are only exact while no update is in flight.
+public class ConcurrentAVLTree<T extends Comparable<T>> implements Tree<T, T> {
+
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT_INCREMENT = 4L;
+
+    private static final int SPIN_COUNT = 100;
+
+    // Results of nodeCondition, anything else is the new height of the node
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final Object RETRY = new Object();
+    private static final Object ABSENT = new Object();
+    private static final Object PRESENT = new Object();
+
+    // Sentinel whose right child is the real root, so the root can be replaced
+    // with the same locking protocol as any other child.
+    private final Node rootHolder;
+    private final LongAdder size;
+
+    public ConcurrentAVLTree() {
+        rootHolder = new Node(null, 1, false, null);
+        size = new LongAdder();
+    }
+
+    @Override
+    public void insert(T value) {
+        if (update(value, true) == ABSENT) {
+            size.increment();
+        }
+    }
+
+    @Override
+    public void remove(T value) {
+        if (update(value, false) == PRESENT) {
+            size.decrement();
+        }
+    }
+
+    // Returns the stored value when present, null otherwise
+    @Override
+    public T find(T value) {
+        while (true) {
+            Node right = rootHolder.right;
+            if (right == null) return null;
+            int cmp = value.compareTo(right.value);
+            if (cmp == 0) return right.present ? right.value : null;
+            long version = right.version;
+            if (isShrinkingOrUnlinked(version)) {
+                right.waitUntilShrinkCompleted(version);
+            } else if (right == rootHolder.right) {
+                Object result = attemptFind(value, right, cmp, version);
+                if (result != RETRY) return result == PRESENT ? value : null;
+            }
+        }
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    // Exact when no update is in flight, otherwise an estimate
+    public int size() {
+        return (int) Math.max(0, Math.min(size.sum(), Integer.MAX_VALUE));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private Object attemptFind(T value, Node node, int dir, long nodeVersion) {
+        while (true) {
+            Node child = node.child(dir);
+            if (child == null) {
+                if (node.version != nodeVersion) return RETRY;
+                return ABSENT;
+            }
+            int childCmp = value.compareTo(child.value);
+            // The value is final, so reaching the node is enough. A concurrently
+            // unlinked node already reports itself as not present.
+            if (childCmp == 0) return child.present ? PRESENT : ABSENT;
+
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                child.waitUntilShrinkCompleted(childVersion);
+                if (node.version != nodeVersion) return RETRY;
+            } else if (child != node.child(dir)) {
+                if (node.version != nodeVersion) return RETRY;
+            } else {
+                if (node.version != nodeVersion) return RETRY;
+                // Both hops were valid at this point, node may now rotate freely
+                Object result = attemptFind(value, child, childCmp, childVersion);
+                if (result != RETRY) return result;
+            }
+        }
+    }
+
+    // Returns PRESENT/ABSENT for the state the value was in before the update
+    private Object update(T value, boolean present) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null!");
+        }
+        while (true) {
+            Node right = rootHolder.right;
+            if (right == null) {
+                if (!present || attemptInsertIntoEmpty(value)) return ABSENT;
+            } else {
+                long version = right.version;
+                if (isShrinkingOrUnlinked(version)) {
+                    right.waitUntilShrinkCompleted(version);
+                } else if (right == rootHolder.right) {
+                    Object result = attemptUpdate(value, present, rootHolder, right, version);
+                    if (result != RETRY) return result;
+                }
+            }
+        }
+    }
+
+    private boolean attemptInsertIntoEmpty(T value) {
+        synchronized (rootHolder) {
+            if (rootHolder.right != null) return false;
+            rootHolder.right = new Node(value, 1, true, rootHolder);
+            rootHolder.height = 2;
+            return true;
+        }
+    }
+
+    private Object attemptUpdate(T value, boolean present, Node parent, Node node, long nodeVersion) {
+        int cmp = value.compareTo(node.value);
+        if (cmp == 0) return attemptNodeUpdate(present, parent, node);
+
+        while (true) {
+            Node child = node.child(cmp);
+            if (node.version != nodeVersion) return RETRY;
+
+            if (child == null) {
+                if (!present) return ABSENT;
+                Node damaged;
+                synchronized (node) {
+                    // Holding the lock, no rotation can invalidate the hop anymore
+                    if (node.version != nodeVersion) return RETRY;
+                    if (node.child(cmp) != null) {
+                        // Lost a race with a concurrent insert, retry from node
+                        continue;
+                    }
+                    node.setChild(cmp, new Node(value, 1, true, node));
+                    damaged = fixHeight(node);
+                }
+                fixHeightAndRebalance(damaged);
+                return ABSENT;
+            }
+
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                child.waitUntilShrinkCompleted(childVersion);
+            } else if (child == node.child(cmp)) {
+                if (node.version != nodeVersion) return RETRY;
+                Object result = attemptUpdate(value, present, node, child, childVersion);
+                if (result != RETRY) return result;
+            }
+        }
+    }
+
+    private Object attemptNodeUpdate(boolean present, Node parent, Node node) {
+        if (!present && !node.present) return ABSENT;
+
+        if (!present && (node.left == null || node.right == null)) {
+            // Removal that can splice the node out, lock the parent first
+            Node damaged;
+            synchronized (parent) {
+                if (isUnlinked(parent.version) || node.parent != parent) return RETRY;
+                synchronized (node) {
+                    if (!node.present) return ABSENT;
+                    if (!attemptUnlink(parent, node)) return RETRY;
+                }
+                damaged = fixHeight(parent);
+            }
+            fixHeightAndRebalance(damaged);
+            return PRESENT;
+        }
+
+        synchronized (node) {
+            if (isUnlinked(node.version)) return RETRY;
+            Object previous = node.present ? PRESENT : ABSENT;
+            if (node.present == present) return previous;
+            // A child may have been removed since, splicing is then possible
+            if (!present && (node.left == null || node.right == null)) return RETRY;
+            // Insert revives a routing node, removal with two children makes one
+            node.present = present;
+            return previous;
+        }
+    }
+
+    // Requires the locks of parent and node
+    private boolean attemptUnlink(Node parent, Node node) {
+        Node parentLeft = parent.left;
+        Node parentRight = parent.right;
+        if (parentLeft != node && parentRight != node) return false;
+
+        Node left = node.left;
+        Node right = node.right;
+        if (left != null && right != null) return false;
+
+        Node splice = left != null ? left : right;
+        if (parentLeft == node) {
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null) splice.parent = parent;
+        node.version = UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    private int nodeCondition(Node node) {
+        Node left = node.left;
+        Node right = node.right;
+        if ((left == null || right == null) && !node.present) return UNLINK_REQUIRED;
+
+        int height = node.height;
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int newHeight = 1 + Math.max(leftHeight, rightHeight);
+        int balance = leftHeight - rightHeight;
+        if (balance < -1 || balance > 1) return REBALANCE_REQUIRED;
+        return height != newHeight ? newHeight : NOTHING_REQUIRED;
+    }
+
+    // Requires the lock of node. Returns the next node needing attention, or null.
+    private Node fixHeight(Node node) {
+        int condition = nodeCondition(node);
+        switch (condition) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent;
+        }
+    }
+
+    // Walks up from a damaged node repairing heights, balance and routing nodes.
+    // A rotation or unlink can leave damage at two places: below, where the
+    // returned node is, and at the parent whose child subtree changed height.
+    // The parents are remembered and re-checked once the walk below is done.
+    private void fixHeightAndRebalance(Node node) {
+        Deque<Node> pending = null;
+        while (true) {
+            if (node == null || node.parent == null) {
+                if (pending == null || pending.isEmpty()) return;
+                node = pending.pop();
+                continue;
+            }
+            int condition = nodeCondition(node);
+            if (condition == NOTHING_REQUIRED || isUnlinked(node.version)) {
+                node = null;
+                continue;
+            }
+
+            if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    node = fixHeight(node);
+                }
+            } else {
+                Node parent = node.parent;
+                synchronized (parent) {
+                    if (!isUnlinked(parent.version) && node.parent == parent) {
+                        synchronized (node) {
+                            node = rebalance(parent, node);
+                        }
+                        if (pending == null) pending = new ArrayDeque<>();
+                        pending.push(parent);
+                    }
+                    // Otherwise retry with the new parent
+                }
+            }
+        }
+    }
+
+    // Requires the locks of parent and node
+    private Node rebalance(Node parent, Node node) {
+        Node left = node.left;
+        Node right = node.right;
+        if ((left == null || right == null) && !node.present) {
+            return attemptUnlink(parent, node) ? fixHeight(parent) : node;
+        }
+
+        int height = node.height;
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int newHeight = 1 + Math.max(leftHeight, rightHeight);
+        int balance = leftHeight - rightHeight;
+
+        if (balance > 1) {
+            return rebalanceToRight(parent, node, left, rightHeight);
+        } else if (balance < -1) {
+            return rebalanceToLeft(parent, node, right, leftHeight);
+        } else if (newHeight != height) {
+            node.height = newHeight;
+            return fixHeight(parent);
+        }
+        return null;
+    }
+
+    private Node rebalanceToRight(Node parent, Node node, Node left, int rightHeight) {
+        synchronized (left) {
+            int leftHeight = left.height;
+            if (leftHeight - rightHeight <= 1) return node; // Retry
+
+            Node leftRight = left.right;
+            int leftLeftHeight = height(left.left);
+            int leftRightHeight = height(leftRight);
+            if (leftLeftHeight >= leftRightHeight) {
+                return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+            }
+            synchronized (leftRight) {
+                int lrHeight = leftRight.height;
+                if (leftLeftHeight >= lrHeight) {
+                    return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, lrHeight);
+                }
+                int leftRightLeftHeight = height(leftRight.left);
+                int b = leftLeftHeight - leftRightLeftHeight;
+                if (b >= -1 && b <= 1 && !((leftLeftHeight == 0 || leftRightLeftHeight == 0) && !left.present)) {
+                    // left will not be damaged by a double rotation
+                    return rotateRightOverLeft(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightLeftHeight);
+                }
+                // A double rotation would leave left unbalanced or as a routing
+                // node to unlink, so only rotate left now. The damaged node is
+                // returned and node itself is rebalanced on a later pass.
+                return rotateLeft(node, left, leftLeftHeight, leftRight,
+                        leftRight.left, leftRightLeftHeight, height(leftRight.right));
+            }
+        }
+    }
+
+    private Node rebalanceToLeft(Node parent, Node node, Node right, int leftHeight) {
+        synchronized (right) {
+            int rightHeight = right.height;
+            if (leftHeight - rightHeight >= -1) return node; // Retry
+
+            Node rightLeft = right.left;
+            int rightLeftHeight = height(rightLeft);
+            int rightRightHeight = height(right.right);
+            if (rightRightHeight >= rightLeftHeight) {
+                return rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+            }
+            synchronized (rightLeft) {
+                int rlHeight = rightLeft.height;
+                if (rightRightHeight >= rlHeight) {
+                    return rotateLeft(parent, node, leftHeight, right, rightLeft, rlHeight, rightRightHeight);
+                }
+                int rightLeftRightHeight = height(rightLeft.right);
+                int b = rightRightHeight - rightLeftRightHeight;
+                if (b >= -1 && b <= 1 && !((rightRightHeight == 0 || rightLeftRightHeight == 0) && !right.present)) {
+                    return rotateLeftOverRight(parent, node, leftHeight, right, rightLeft, rightRightHeight, rightLeftRightHeight);
+                }
+                return rotateRight(node, right, rightLeft, rightRightHeight,
+                        height(rightLeft.left), rightLeft.right, rightLeftRightHeight);
+            }
+        }
+    }
+
+    // Left element of node now becomes the child of parent. Node moves down,
+    // so it is marked as shrinking while its links are rewritten.
+    private Node rotateRight(Node parent, Node node, Node left, int rightHeight,
+                             int leftLeftHeight, Node leftRight, int leftRightHeight) {
+        long nodeVersion = node.version;
+        Node parentLeft = parent.left;
+
+        node.version = beginShrink(nodeVersion);
+
+        node.left = leftRight;
+        if (leftRight != null) leftRight.parent = node;
+
+        left.right = node;
+        node.parent = left;
+
+        if (parentLeft == node) {
+            parent.left = left;
+        } else {
+            parent.right = left;
+        }
+        left.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+        node.height = nodeHeight;
+        left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+
+        node.version = endShrink(nodeVersion);
+
+        // Repair as much as possible with the locks held, deepest node first
+        int nodeBalance = leftRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) return node;
+        if ((leftRight == null || rightHeight == 0) && !node.present) return node;
+
+        int leftBalance = leftLeftHeight - nodeHeight;
+        if (leftBalance < -1 || leftBalance > 1) return left;
+        if (leftLeftHeight == 0 && !left.present) return left;
+
+        return fixHeight(parent);
+    }
+
+    // Right element of node now becomes the child of parent
+    private Node rotateLeft(Node parent, Node node, int leftHeight, Node right,
+                            Node rightLeft, int rightLeftHeight, int rightRightHeight) {
+        long nodeVersion = node.version;
+        Node parentLeft = parent.left;
+
+        node.version = beginShrink(nodeVersion);
+
+        node.right = rightLeft;
+        if (rightLeft != null) rightLeft.parent = node;
+
+        right.left = node;
+        node.parent = right;
+
+        if (parentLeft == node) {
+            parent.left = right;
+        } else {
+            parent.right = right;
+        }
+        right.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+        node.height = nodeHeight;
+        right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+
+        node.version = endShrink(nodeVersion);
+
+        int nodeBalance = leftHeight - rightLeftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) return node;
+        if ((rightLeft == null || leftHeight == 0) && !node.present) return node;
+
+        int rightBalance = nodeHeight - rightRightHeight;
+        if (rightBalance < -1 || rightBalance > 1) return right;
+        if (rightRightHeight == 0 && !right.present) return right;
+
+        return fixHeight(parent);
+    }
+
+    // Double rotation (LR): leftRight becomes the child of parent, both node
+    // and left move down.
+    private Node rotateRightOverLeft(Node parent, Node node, Node left, int rightHeight,
+                                     int leftLeftHeight, Node leftRight, int leftRightLeftHeight) {
+        long nodeVersion = node.version;
+        long leftVersion = left.version;
+
+        Node parentLeft = parent.left;
+        Node leftRightLeft = leftRight.left;
+        Node leftRightRight = leftRight.right;
+        int leftRightRightHeight = height(leftRightRight);
+
+        node.version = beginShrink(nodeVersion);
+        left.version = beginShrink(leftVersion);
+
+        node.left = leftRightRight;
+        if (leftRightRight != null) leftRightRight.parent = node;
+
+        left.right = leftRightLeft;
+        if (leftRightLeft != null) leftRightLeft.parent = left;
+
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+
+        if (parentLeft == node) {
+            parent.left = leftRight;
+        } else {
+            parent.right = leftRight;
+        }
+        leftRight.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+        node.height = nodeHeight;
+        int leftNewHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+        left.height = leftNewHeight;
+        leftRight.height = 1 + Math.max(leftNewHeight, nodeHeight);
+
+        node.version = endShrink(nodeVersion);
+        left.version = endShrink(leftVersion);
+
+        int nodeBalance = leftRightRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) return node;
+        if ((leftRightRight == null || rightHeight == 0) && !node.present) return node;
+
+        int leftRightBalance = leftNewHeight - nodeHeight;
+        if (leftRightBalance < -1 || leftRightBalance > 1) return leftRight;
+
+        return fixHeight(parent);
+    }
+
+    // Double rotation (RL): rightLeft becomes the child of parent
+    private Node rotateLeftOverRight(Node parent, Node node, int leftHeight, Node right,
+                                     Node rightLeft, int rightRightHeight, int rightLeftRightHeight) {
+        long nodeVersion = node.version;
+        long rightVersion = right.version;
+
+        Node parentLeft = parent.left;
+        Node rightLeftLeft = rightLeft.left;
+        Node rightLeftRight = rightLeft.right;
+        int rightLeftLeftHeight = height(rightLeftLeft);
+
+        node.version = beginShrink(nodeVersion);
+        right.version = beginShrink(rightVersion);
+
+        node.right = rightLeftLeft;
+        if (rightLeftLeft != null) rightLeftLeft.parent = node;
+
+        right.left = rightLeftRight;
+        if (rightLeftRight != null) rightLeftRight.parent = right;
+
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+
+        if (parentLeft == node) {
+            parent.left = rightLeft;
+        } else {
+            parent.right = rightLeft;
+        }
+        rightLeft.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+        node.height = nodeHeight;
+        int rightNewHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+        right.height = rightNewHeight;
+        rightLeft.height = 1 + Math.max(nodeHeight, rightNewHeight);
+
+        node.version = endShrink(nodeVersion);
+        right.version = endShrink(rightVersion);
+
+        int nodeBalance = leftHeight - rightLeftLeftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) return node;
+        if ((rightLeftLeft == null || leftHeight == 0) && !node.present) return node;
+
+        int rightLeftBalance = nodeHeight - rightNewHeight;
+        if (rightLeftBalance < -1 || rightLeftBalance > 1) return rightLeft;
+
+        return fixHeight(parent);
+    }
+
+    // Smallest present value above bound (at least bound when inclusive), the
+    // smallest one at all when bound is null, or null when there is none
+    @SuppressWarnings("unchecked")
+    private T successor(T bound, boolean inclusive) {
+        while (true) {
+            Node right = rootHolder.right;
+            if (right == null) return null;
+            long version = right.version;
+            if (isShrinkingOrUnlinked(version)) {
+                right.waitUntilShrinkCompleted(version);
+            } else if (right == rootHolder.right) {
+                Object result = attemptSuccessor(bound, inclusive, right, version);
+                if (result != RETRY) return result == ABSENT ? null : (T) result;
+            }
+        }
+    }
+
+    // Searches the subtree of node, reached with nodeVersion, left to right.
+    // A subtree is only reported empty after its own version was validated,
+    // so a value present during the whole search cannot be skipped.
+    private Object attemptSuccessor(T bound, boolean inclusive, Node node, long nodeVersion) {
+        int cmp = bound == null ? -1 : bound.compareTo(node.value);
+        if (cmp < 0) {
+            Object result = attemptSuccessorInChild(bound, inclusive, node, nodeVersion, -1);
+            if (result != ABSENT) return result;
+        }
+        // Read after the left subtree, an unlinked node is no longer present
+        if ((cmp < 0 || (cmp == 0 && inclusive)) && node.present) return node.value;
+        return attemptSuccessorInChild(bound, inclusive, node, nodeVersion, 1);
+    }
+
+    // Same hand-over-hand validation as attemptFind
+    private Object attemptSuccessorInChild(T bound, boolean inclusive, Node node, long nodeVersion, int dir) {
+        while (true) {
+            Node child = node.child(dir);
+            if (child == null) {
+                if (node.version != nodeVersion) return RETRY;
+                return ABSENT;
+            }
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                child.waitUntilShrinkCompleted(childVersion);
+                if (node.version != nodeVersion) return RETRY;
+            } else if (child != node.child(dir)) {
+                if (node.version != nodeVersion) return RETRY;
+            } else {
+                if (node.version != nodeVersion) return RETRY;
+                Object result = attemptSuccessor(bound, inclusive, child, childVersion);
+                if (result != RETRY) return result;
+            }
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        for (T value = successor(null, false); value != null; value = successor(value, false)) {
+            action.accept(value);
+        }
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        forEachPreOrder(rootHolder.right, action);
+    }
+
+    private void forEachPreOrder(Node node, Consumer<? super T> action) {
+        if (node != null) {
+            if (node.present) action.accept(node.value);
+            forEachPreOrder(node.left, action);
+            forEachPreOrder(node.right, action);
+        }
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        forEachPostOrder(rootHolder.right, action);
+    }
+
+    private void forEachPostOrder(Node node, Consumer<? super T> action) {
+        if (node != null) {
+            forEachPostOrder(node.left, action);
+            forEachPostOrder(node.right, action);
+            if (node.present) action.accept(node.value);
+        }
+    }
+
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new Iterator<T>() {
+            private T next = successor(null, false);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements!");
+                }
+                T value = next;
+                next = successor(value, false);
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        for (T value = successor(lo, true); value != null && hi.compareTo(value) >= 0; value = successor(value, false)) {
+            action.accept(value);
+        }
+    }
+
+    // Not atomic: values in the range are removed one by one
+    @Override
+    public void removeRange(T lo, T hi) {
+        List<T> inRange = new ArrayList<>();
+        rangeScan(lo, hi, inRange::add);
+        for (T value : inRange) {
+            remove(value);
+        }
+    }
+
+    private static int height(ConcurrentAVLTree<?>.Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static boolean isShrinkingOrUnlinked(long version) {
+        return (version & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    private static boolean isUnlinked(long version) {
+        return version == UNLINKED;
+    }
+
+    private static long beginShrink(long version) {
+        return version | SHRINKING;
+    }
+
+    private static long endShrink(long version) {
+        return version + SHRINK_COUNT_INCREMENT;
+    }
+
+    private class Node {
+        private final T value;
+        private volatile boolean present;
+        private volatile int height;
+        // Changes only when the node moves down in a rotation or is unlinked
+        private volatile long version;
+        private volatile Node parent;
+        private volatile Node left;
+        private volatile Node right;
+
+        public Node(T value, int height, boolean present, Node parent) {
+            this.value = value;
+            this.height = height;
+            this.present = present;
+            this.parent = parent;
+            version = 0L;
+            left = right = null;
+        }
+
+        private Node child(int dir) {
+            return dir < 0 ? left : right;
+        }
+
+        private void setChild(int dir, Node node) {
+            if (dir < 0) {
+                left = node;
+            } else {
+                right = node;
+            }
+        }
+
+        // Spins briefly, then blocks on the node's lock, which the rotating
+        // thread holds until the shrink is over.
+        private void waitUntilShrinkCompleted(long observedVersion) {
+            if ((observedVersion & SHRINKING) == 0) return;
+            for (int i = 0; i < SPIN_COUNT; i++) {
+                if (version != observedVersion) return;
+                Thread.onSpinWait();
+            }
+            synchronized (this) {
+                // Nothing to do, acquiring the lock means the shrink is done
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package tree;
+
+import java.util.Arrays;
+
+// AVL tree over primitive int keys. Nodes are slots in parallel arrays (key,
+// height, left child, right child) instead of heap objects, so there is no
+// boxing and no per-node object header: 13 bytes per key. The algorithms are
+// shared with OffHeapAVLTree in SlotAVLTree.
+public class IntAVLTree extends SlotAVLTree {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private int[] keys;
+    private byte[] heights;
+    private int[] left;
+    private int[] right;
+
+    public IntAVLTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntAVLTree(int initialCapacity) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        keys = new int[initialCapacity];
+        heights = new byte[initialCapacity];
+        left = new int[initialCapacity];
+        right = new int[initialCapacity];
+    }
+
+    @Override
+    protected void reserve(int slot) {
+        if (slot == keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("Tree is full!");
+        }
+        int capacity = (int) Math.min((long) keys.length + (keys.length >> 1) + 1, MAX_CAPACITY);
+        keys = Arrays.copyOf(keys, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+    }
+
+    @Override
+    protected int key(int node) {
+        return keys[node];
+    }
+
+    @Override
+    protected void setKey(int node, int key) {
+        keys[node] = key;
+    }
+
+    @Override
+    protected int storedHeight(int node) {
+        return heights[node];
+    }
+
+    @Override
+    protected void setHeight(int node, int height) {
+        heights[node] = (byte) height;
+    }
+
+    @Override
+    protected int left(int node) {
+        return left[node];
+    }
+
+    @Override
+    protected void setLeft(int node, int left) {
+        this.left[node] = left;
+    }
+
+    @Override
+    protected int right(int node) {
+        return right[node];
+    }
+
+    @Override
+    protected void setRight(int node, int right) {
+        this.right[node] = right;
+    }
+}
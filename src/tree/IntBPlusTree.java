@@ -0,0 +1,502 @@
+package tree;
+
+import stack.IntStack;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// B+-tree over primitive int keys. Every node keeps its keys in a sorted int
+// array, so a lookup touches one node per level, log_fanout(n) levels instead
+// of the ~1.44 log2(n) pointer hops of an AVL tree, and scans each node within
+// a few cache lines. All keys live in the leaves; inner nodes only hold
+// separators and children. Leaves are linked, so range scans and iteration
+// walk them sequentially without going back up the tree.
+//
+// A node holds at most fanout keys (fanout children for inner nodes) and,
+// except for the root, at least half of that.
+public class IntBPlusTree implements Tree<Integer, Integer> {
+
+    private static final int DEFAULT_FANOUT = 64;
+    private static final int MIN_FANOUT = 4;
+    // Below this many keys a linear scan beats binary search: the loop exit is
+    // its only unpredictable branch and it reads the keys in order
+    private static final int LINEAR_SEARCH_THRESHOLD = 16;
+    // Even with the minimum fanout 2^31 keys fit in less than 32 levels
+    private static final int MAX_HEIGHT = 64;
+
+    private final int fanout;
+    private final int minLeafKeys;
+    private final int minInnerKeys;
+    private Node root;
+    private int size;
+    private int height;
+    private final Inner[] path;
+    private final int[] childIndexes;
+
+    public IntBPlusTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    public IntBPlusTree(int fanout) {
+        if (fanout < MIN_FANOUT) {
+            throw new IllegalArgumentException("Fanout must be at least " + MIN_FANOUT + "!");
+        }
+        this.fanout = fanout;
+        minLeafKeys = fanout / 2;
+        minInnerKeys = (fanout - 1) / 2;
+        root = new Leaf(fanout);
+        size = 0;
+        height = 1;
+        path = new Inner[MAX_HEIGHT];
+        childIndexes = new int[MAX_HEIGHT];
+    }
+
+    public int fanout() {
+        return fanout;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    // Index of key in keys[0, count) when present, -(insertion point) - 1 otherwise
+    private static int search(int[] keys, int count, int key) {
+        if (count <= LINEAR_SEARCH_THRESHOLD) {
+            int i = 0;
+            while (i < count && keys[i] < key) {
+                i++;
+            }
+            return i < count && keys[i] == key ? i : -i - 1;
+        }
+        return Arrays.binarySearch(keys, 0, count, key);
+    }
+
+    // Child to follow for key: separator keys[i] is the smallest key of child i + 1
+    private static int childIndex(Inner node, int key) {
+        int i = search(node.keys, node.count, key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private Leaf findLeaf(int key) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+        return (Leaf) node;
+    }
+
+    // Descends to the leaf of key, recording inner nodes and child indexes
+    private Leaf descend(int key) {
+        Node node = root;
+        int depth = 0;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            int index = childIndex(inner, key);
+            path[depth] = inner;
+            childIndexes[depth++] = index;
+            node = inner.children[index];
+        }
+        return (Leaf) node;
+    }
+
+    public boolean contains(int key) {
+        Leaf leaf = findLeaf(key);
+        return search(leaf.keys, leaf.count, key) >= 0;
+    }
+
+    // Returns the key itself when present, null otherwise
+    @Override
+    public Integer find(Integer value) {
+        return contains(value) ? value : null;
+    }
+
+    public void insert(int key) {
+        Leaf leaf = descend(key);
+        int i = search(leaf.keys, leaf.count, key);
+        if (i >= 0) return; // Number already exists
+        leaf.insertAt(-i - 1, key);
+        size++;
+        if (leaf.count <= fanout) {
+            clearPath(height - 1);
+            return;
+        }
+
+        // Split overflowing nodes bottom-up, each split adds one separator above
+        Node right = leaf.split();
+        int separator = ((Leaf) right).keys[0];
+        for (int depth = height - 2; depth >= 0; depth--) {
+            Inner parent = path[depth];
+            parent.insertAt(childIndexes[depth], separator, right);
+            if (parent.count < fanout) {
+                clearPath(height - 1);
+                return;
+            }
+            separator = parent.keys[parent.count / 2];
+            right = parent.split();
+        }
+        Inner newRoot = new Inner(fanout);
+        newRoot.children[0] = root;
+        newRoot.insertAt(0, separator, right);
+        root = newRoot;
+        height++;
+        clearPath(height - 1);
+    }
+
+    @Override
+    public void insert(Integer value) {
+        insert(value.intValue());
+    }
+
+    public void remove(int key) {
+        Leaf leaf = descend(key);
+        int i = search(leaf.keys, leaf.count, key);
+        if (i < 0) {
+            clearPath(height - 1);
+            return;
+        }
+        leaf.removeAt(i);
+        size--;
+        int pathLength = height - 1;
+
+        // Separators may keep a removed key: it still splits the key space
+        // correctly, so only underflows need fixing on the way up.
+        Node node = leaf;
+        for (int depth = height - 2; depth >= 0; depth--) {
+            int minKeys = node instanceof Leaf ? minLeafKeys : minInnerKeys;
+            if (node.count >= minKeys) break;
+            fixUnderflow(path[depth], childIndexes[depth]);
+            node = path[depth];
+        }
+        if (root instanceof Inner && root.count == 0) {
+            root = ((Inner) root).children[0];
+            height--;
+        }
+        clearPath(pathLength);
+    }
+
+    @Override
+    public void remove(Integer value) {
+        remove(value.intValue());
+    }
+
+    // Borrows a key from a sibling that can spare one, otherwise merges the
+    // child with a sibling, which removes one separator from parent.
+    private void fixUnderflow(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node leftSibling = index > 0 ? parent.children[index - 1] : null;
+        Node rightSibling = index < parent.count ? parent.children[index + 1] : null;
+        int minKeys = child instanceof Leaf ? minLeafKeys : minInnerKeys;
+
+        if (leftSibling != null && leftSibling.count > minKeys) {
+            parent.keys[index - 1] = child.borrowFromLeft(leftSibling, parent.keys[index - 1]);
+        } else if (rightSibling != null && rightSibling.count > minKeys) {
+            parent.keys[index] = child.borrowFromRight(rightSibling, parent.keys[index]);
+        } else if (leftSibling != null) {
+            leftSibling.merge(child, parent.keys[index - 1]);
+            parent.removeAt(index - 1);
+        } else {
+            child.merge(rightSibling, parent.keys[index]);
+            parent.removeAt(index);
+        }
+    }
+
+    private void clearPath(int depth) {
+        Arrays.fill(path, 0, depth, null);
+    }
+
+    public void rangeScan(int lo, int hi, IntConsumer action) {
+        if (lo > hi) return;
+        Leaf leaf = findLeaf(lo);
+        int i = search(leaf.keys, leaf.count, lo);
+        if (i < 0) i = -i - 1;
+        while (leaf != null) {
+            for (; i < leaf.count; i++) {
+                int key = leaf.keys[i];
+                if (key > hi) return;
+                action.accept(key);
+            }
+            leaf = leaf.next;
+            i = 0;
+        }
+    }
+
+    @Override
+    public void rangeScan(Integer lo, Integer hi, Consumer<? super Integer> action) {
+        rangeScan(lo.intValue(), hi.intValue(), action::accept);
+    }
+
+    // The keys are collected first and removed individually: O(k log n)
+    public void removeRange(int lo, int hi) {
+        IntStack inRange = new IntStack();
+        rangeScan(lo, hi, inRange::push);
+        while (!inRange.isEmpty()) {
+            remove(inRange.pop());
+        }
+    }
+
+    @Override
+    public void removeRange(Integer lo, Integer hi) {
+        removeRange(lo.intValue(), hi.intValue());
+    }
+
+    private Leaf firstLeaf() {
+        Node node = root;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return (Leaf) node;
+    }
+
+    public void forEachKeyInOrder(IntConsumer action) {
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                action.accept(leaf.keys[i]);
+            }
+        }
+    }
+
+    // All keys live in the leaves, which any depth-first walk reaches from left
+    // to right, so pre- and post-order visit keys in the same order as in-order.
+    public void forEachKeyPreOrder(IntConsumer action) {
+        forEachKeyInOrder(action);
+    }
+
+    public void forEachKeyPostOrder(IntConsumer action) {
+        forEachKeyInOrder(action);
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super Integer> action) {
+        forEachKeyInOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super Integer> action) {
+        forEachKeyPreOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super Integer> action) {
+        forEachKeyPostOrder(action::accept);
+    }
+
+    // nextInt() walks the leaf chain without boxing; the tree must not be
+    // modified while iterating.
+    @Override
+    public PrimitiveIterator.OfInt inOrderIterator() {
+        return new InOrderIterator();
+    }
+
+    private class InOrderIterator implements PrimitiveIterator.OfInt {
+        private Leaf leaf;
+        private int index;
+
+        public InOrderIterator() {
+            leaf = firstLeaf();
+            index = 0;
+            skipExhaustedLeaves();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            int key = leaf.keys[index++];
+            skipExhaustedLeaves();
+            return key;
+        }
+
+        private void skipExhaustedLeaves() {
+            while (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    @Override
+    public String traverseInOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyInOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePreOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPreOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePostOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPostOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    private abstract static class Node {
+        // Arrays have one spare slot so a node can overflow before it is split
+        protected final int[] keys;
+        protected int count;
+
+        protected Node(int keyCapacity) {
+            keys = new int[keyCapacity];
+            count = 0;
+        }
+
+        // Moves the right half into a new sibling and returns it
+        protected abstract Node split();
+
+        // Takes the last entry of left, returns the new separator between them
+        protected abstract int borrowFromLeft(Node left, int separator);
+
+        // Takes the first entry of right, returns the new separator between them
+        protected abstract int borrowFromRight(Node right, int separator);
+
+        // Appends every entry of right, which is then dropped by the caller
+        protected abstract void merge(Node right, int separator);
+    }
+
+    private static class Leaf extends Node {
+        private Leaf next;
+
+        public Leaf(int fanout) {
+            super(fanout + 1);
+            next = null;
+        }
+
+        public void insertAt(int index, int key) {
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            keys[index] = key;
+            count++;
+        }
+
+        public void removeAt(int index) {
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            count--;
+        }
+
+        @Override
+        protected Node split() {
+            Leaf right = new Leaf(keys.length - 1);
+            int half = count / 2;
+            right.count = count - half;
+            System.arraycopy(keys, half, right.keys, 0, right.count);
+            count = half;
+            right.next = next;
+            next = right;
+            return right;
+        }
+
+        @Override
+        protected int borrowFromLeft(Node left, int separator) {
+            insertAt(0, left.keys[--left.count]);
+            return keys[0];
+        }
+
+        @Override
+        protected int borrowFromRight(Node right, int separator) {
+            keys[count++] = right.keys[0];
+            ((Leaf) right).removeAt(0);
+            return right.keys[0];
+        }
+
+        @Override
+        protected void merge(Node right, int separator) {
+            System.arraycopy(right.keys, 0, keys, count, right.count);
+            count += right.count;
+            next = ((Leaf) right).next;
+        }
+    }
+
+    private static class Inner extends Node {
+        private final Node[] children;
+
+        public Inner(int fanout) {
+            super(fanout);
+            children = new Node[fanout + 1];
+        }
+
+        // Inserts separator at index, with right as the child following it
+        public void insertAt(int index, int separator, Node right) {
+            System.arraycopy(keys, index, keys, index + 1, count - index);
+            System.arraycopy(children, index + 1, children, index + 2, count - index);
+            keys[index] = separator;
+            children[index + 1] = right;
+            count++;
+        }
+
+        // Removes separator index and the child following it
+        public void removeAt(int index) {
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 2, children, index + 1, count - index - 1);
+            children[count] = null;
+            count--;
+        }
+
+        // The middle separator moves up to the parent and stays in neither half
+        @Override
+        protected Node split() {
+            Inner right = new Inner(keys.length);
+            int middle = count / 2;
+            right.count = count - middle - 1;
+            System.arraycopy(keys, middle + 1, right.keys, 0, right.count);
+            System.arraycopy(children, middle + 1, right.children, 0, right.count + 1);
+            Arrays.fill(children, middle + 1, count + 1, null);
+            count = middle;
+            return right;
+        }
+
+        @Override
+        protected int borrowFromLeft(Node left, int separator) {
+            Inner sibling = (Inner) left;
+            System.arraycopy(keys, 0, keys, 1, count);
+            System.arraycopy(children, 0, children, 1, count + 1);
+            keys[0] = separator;
+            children[0] = sibling.children[sibling.count];
+            sibling.children[sibling.count] = null;
+            count++;
+            return sibling.keys[--sibling.count];
+        }
+
+        @Override
+        protected int borrowFromRight(Node right, int separator) {
+            Inner sibling = (Inner) right;
+            keys[count] = separator;
+            children[++count] = sibling.children[0];
+            int newSeparator = sibling.keys[0];
+            System.arraycopy(sibling.keys, 1, sibling.keys, 0, sibling.count - 1);
+            System.arraycopy(sibling.children, 1, sibling.children, 0, sibling.count);
+            sibling.children[sibling.count--] = null;
+            return newSeparator;
+        }
+
+        @Override
+        protected void merge(Node right, int separator) {
+            Inner sibling = (Inner) right;
+            keys[count] = separator;
+            System.arraycopy(sibling.keys, 0, keys, count + 1, sibling.count);
+            System.arraycopy(sibling.children, 0, children, count + 1, sibling.count + 1);
+            count += sibling.count + 1;
+        }
+    }
+}
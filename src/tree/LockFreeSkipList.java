@@ -0,0 +1,339 @@
+package tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Lock-free ordered set on a skip list (Herlihy and Shavit, "The Art of
+// Multiprocessor Programming", 14.4). Every level is a Harris linked list: a
+// node is removed by first marking its next links, top level down, and then
+// unlinking it with a CAS on the predecessor. Searches unlink marked nodes they
+// pass, so an interrupted removal is finished by whoever comes by next. Unlike
+// a balanced tree there is no rebalancing: the shape only depends on the
+// random levels, which are drawn from the thread-local generator so inserting
+// threads share nothing but the links they CAS.
+//
+// find() never writes and never retries. Traversals, iterators and range
+// operations are weakly consistent: they never fail, but may or may not
+// observe updates made while they run.
+public class LockFreeSkipList<T extends Comparable<T>> implements Tree<T, T> {
+
+    // p = 1/2 per level, enough for 2^32 values
+    private static final int MAX_LEVEL = 32;
+
+    // Sentinel in front of every level, the end of a level is null
+    private final Node<T> head;
+    private final LongAdder size;
+
+    public LockFreeSkipList() {
+        head = new Node<>(null, MAX_LEVEL - 1);
+        size = new LongAdder();
+    }
+
+    @Override
+    public void insert(T value) {
+        if (add(value)) {
+            size.increment();
+        }
+    }
+
+    // Returns true when value was not present yet
+    public boolean add(T value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null!");
+        }
+        int topLevel = randomLevel();
+        Node<T>[] preds = newNodeArray();
+        Node<T>[] succs = newNodeArray();
+        while (true) {
+            if (search(value, preds, succs)) {
+                return false;
+            }
+            Node<T> created = new Node<>(value, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                created.next[level].set(succs[level], false);
+            }
+            // Linking the bottom level is the linearization point, the upper
+            // levels are only shortcuts
+            if (!preds[0].next[0].compareAndSet(succs[0], created, false, false)) {
+                continue;
+            }
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    Node<T> succ = succs[level];
+                    Node<T> current = created.next[level].getReference();
+                    // A concurrent remove has started marking the node, it
+                    // must not be linked any further
+                    if (created.next[level].isMarked()) return true;
+                    if (current != succ && !created.next[level].compareAndSet(current, succ, false, false)) {
+                        continue;
+                    }
+                    if (preds[level].next[level].compareAndSet(succ, created, false, false)) break;
+                    search(value, preds, succs);
+                }
+            }
+            return true;
+        }
+    }
+
+    // Returns the stored value when present, null otherwise
+    @Override
+    public T find(T value) {
+        boolean[] marked = {false};
+        Node<T> pred = head;
+        Node<T> current = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            current = pred.next[level].getReference();
+            while (current != null) {
+                Node<T> succ = current.next[level].get(marked);
+                // Step over marked nodes without unlinking them
+                while (marked[0]) {
+                    current = succ;
+                    if (current == null) break;
+                    succ = current.next[level].get(marked);
+                }
+                if (current == null || current.value.compareTo(value) >= 0) break;
+                pred = current;
+                current = succ;
+            }
+        }
+        return current != null && current.value.compareTo(value) == 0 ? current.value : null;
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    @Override
+    public void remove(T value) {
+        if (delete(value)) {
+            size.decrement();
+        }
+    }
+
+    // Returns true when this call removed value
+    public boolean delete(T value) {
+        Node<T>[] preds = newNodeArray();
+        Node<T>[] succs = newNodeArray();
+        if (!search(value, preds, succs)) {
+            return false;
+        }
+        Node<T> victim = succs[0];
+        boolean[] marked = {false};
+        for (int level = victim.topLevel; level >= 1; level--) {
+            Node<T> succ = victim.next[level].get(marked);
+            while (!marked[0]) {
+                victim.next[level].compareAndSet(succ, succ, false, true);
+                succ = victim.next[level].get(marked);
+            }
+        }
+        // Whoever marks the bottom level owns the removal
+        Node<T> succ = victim.next[0].get(marked);
+        while (true) {
+            boolean markedByUs = victim.next[0].compareAndSet(succ, succ, false, true);
+            succ = victim.next[0].get(marked);
+            if (markedByUs) {
+                search(value, preds, succs); // Unlinks it on every level
+                return true;
+            }
+            if (marked[0]) return false;
+        }
+    }
+
+    // Fills preds and succs with the nodes around value on every level,
+    // unlinking the marked nodes met on the way. Returns true when value is
+    // present, it is then succs[0].
+    private boolean search(T value, Node<T>[] preds, Node<T>[] succs) {
+        boolean[] marked = {false};
+        retry:
+        while (true) {
+            Node<T> pred = head;
+            for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+                Node<T> current = pred.next[level].getReference();
+                while (current != null) {
+                    Node<T> succ = current.next[level].get(marked);
+                    while (marked[0]) {
+                        if (!pred.next[level].compareAndSet(current, succ, false, false)) {
+                            continue retry; // pred changed or got marked itself
+                        }
+                        current = succ;
+                        if (current == null) break;
+                        succ = current.next[level].get(marked);
+                    }
+                    if (current == null || current.value.compareTo(value) >= 0) break;
+                    pred = current;
+                    current = succ;
+                }
+                preds[level] = pred;
+                succs[level] = current;
+            }
+            return succs[0] != null && succs[0].value.compareTo(value) == 0;
+        }
+    }
+
+    // Level i is reached with probability 2^-i
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodeArray() {
+        return (Node<T>[]) new Node<?>[MAX_LEVEL];
+    }
+
+    // Exact when no update is in flight, otherwise an estimate
+    public int size() {
+        return (int) Math.max(0, Math.min(size.sum(), Integer.MAX_VALUE));
+    }
+
+    public boolean isEmpty() {
+        return firstAtLeast(null) == null;
+    }
+
+    // First unmarked node on the bottom level whose value is at least lo, or
+    // the first one at all when lo is null
+    private Node<T> firstAtLeast(T lo) {
+        return first(lo, true);
+    }
+
+    // First unmarked node whose value is above bound (at least bound when
+    // inclusive), the first one at all when bound is null. Descends like find:
+    // marked nodes are stepped over without being unlinked, and pred only moves
+    // onto a node whose link on that level was read unmarked, so no node
+    // linked before the call can be missed behind a removed one.
+    private Node<T> first(T bound, boolean inclusive) {
+        boolean[] marked = {false};
+        Node<T> pred = head;
+        Node<T> current = null;
+        for (int level = bound == null ? 0 : MAX_LEVEL - 1; level >= 0; level--) {
+            current = pred.next[level].getReference();
+            while (current != null) {
+                Node<T> succ = current.next[level].get(marked);
+                while (marked[0]) {
+                    current = succ;
+                    if (current == null) break;
+                    succ = current.next[level].get(marked);
+                }
+                if (current == null || isAfter(current.value, bound, inclusive)) break;
+                pred = current;
+                current = succ;
+            }
+        }
+        return current;
+    }
+
+    private static <T extends Comparable<T>> boolean isAfter(T value, T bound, boolean inclusive) {
+        if (bound == null) return true;
+        int cmp = value.compareTo(bound);
+        return cmp > 0 || (inclusive && cmp == 0);
+    }
+
+    // Next unmarked node on the bottom level. Once node itself is removed its
+    // link is frozen, so the walk restarts from the top past its value.
+    private Node<T> successor(Node<T> node) {
+        boolean[] marked = {false};
+        Node<T> current = node.next[0].get(marked);
+        if (marked[0]) return first(node.value, false);
+        while (current != null) {
+            Node<T> succ = current.next[0].get(marked);
+            if (!marked[0]) return current;
+            current = succ;
+        }
+        return null;
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        for (Node<T> node = firstAtLeast(lo); node != null && hi.compareTo(node.value) >= 0; node = successor(node)) {
+            action.accept(node.value);
+        }
+    }
+
+    // Weakly consistent iterator over the values in [lo, hi], in order
+    public Iterator<T> rangeIterator(T lo, T hi) {
+        return new InOrderIterator(firstAtLeast(lo), hi);
+    }
+
+    // Not atomic: values in the range are removed one by one
+    @Override
+    public void removeRange(T lo, T hi) {
+        List<T> inRange = new ArrayList<>();
+        rangeScan(lo, hi, inRange::add);
+        for (T value : inRange) {
+            remove(value);
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        for (Node<T> node = firstAtLeast(null); node != null; node = successor(node)) {
+            action.accept(node.value);
+        }
+    }
+
+    // A skip list has no tree shape to walk, so pre- and post-order visit the
+    // values in the same order as in-order.
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        forEachInOrder(action);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        forEachInOrder(action);
+    }
+
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new InOrderIterator(firstAtLeast(null), null);
+    }
+
+    // Walks the bottom level, skipping removed nodes. hi is inclusive, null
+    // means no upper bound.
+    private class InOrderIterator implements Iterator<T> {
+        private final T hi;
+        private Node<T> next;
+
+        public InOrderIterator(Node<T> first, T hi) {
+            this.hi = hi;
+            next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null && (hi == null || hi.compareTo(next.value) >= 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            T value = next.value;
+            next = successor(next);
+            return value;
+        }
+    }
+
+    private static class Node<T> {
+        private final T value;
+        private final int topLevel;
+        // The mark on next[i] means the node is being removed from level i
+        private final AtomicMarkableReference<Node<T>>[] next;
+
+        @SuppressWarnings("unchecked")
+        public Node(T value, int topLevel) {
+            this.value = value;
+            this.topLevel = topLevel;
+            next = (AtomicMarkableReference<Node<T>>[]) new AtomicMarkableReference<?>[topLevel + 1];
+            for (int level = 0; level <= topLevel; level++) {
+                next[level] = new AtomicMarkableReference<>(null, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,866 @@
+package tree;
+
+import stack.IntStack;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+// Disk-resident B+-tree over int keys. The file is a sequence of 4 KiB pages
+// accessed through memory mappings, so the working set lives in the OS page
+// cache rather than on the Java heap, and reopening a file only reads its
+// header and free-list.
+//
+// Crash safety comes from copy-on-write: a page belonging to the last committed
+// version is never modified. An update copies the pages on its root-to-leaf
+// path (once per transaction, later updates change the copies in place) and
+// commit() flushes the new pages before switching to them by writing one of the
+// two header pages, which carry a transaction id and a checksum. After a crash
+// the file opens at the last commit whose header was fully written. Pages
+// released by a transaction only become reusable after it commits.
+//
+// Leaves are not linked: with copy-on-write a sibling link would force every
+// leaf update to copy its neighbours as well. Range scans and iteration walk
+// down from the inner nodes instead.
+//
+// Not thread safe. Updates are only durable once commit() or close() returns.
+public class MappedBPlusTree implements Tree<Integer, Integer>, Closeable {
+
+    private static final int PAGE_SIZE = 4096;
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final int PAGES_PER_SEGMENT = (int) (SEGMENT_SIZE / PAGE_SIZE);
+    private static final long MIN_MAPPING_SIZE = 1L << 20;
+    // Pages 0 and 1 hold the headers, so page 0 also serves as the null link
+    private static final int NIL = 0;
+    private static final int HEADER_PAGES = 2;
+    private static final int MAX_HEIGHT = 64;
+
+    private static final long MAGIC = 0x4250_4C55_5354_5245L;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int PAGE_SIZE_OFFSET = 12;
+    private static final int TRANSACTION_OFFSET = 16;
+    private static final int ROOT_OFFSET = 24;
+    private static final int HEIGHT_OFFSET = 28;
+    private static final int SIZE_OFFSET = 32;
+    private static final int PAGE_COUNT_OFFSET = 40;
+    private static final int FREE_LIST_OFFSET = 44;
+    private static final int CHECKSUM_OFFSET = 48;
+
+    private static final int LEAF = 1;
+    private static final int INNER = 2;
+    private static final int FREE_LIST = 3;
+
+    // Common page layout: type, key count, then the keys
+    private static final int TYPE_OFFSET = 0;
+    private static final int COUNT_OFFSET = 4;
+    private static final int KEYS_OFFSET = 8;
+    private static final int LEAF_CAPACITY = (PAGE_SIZE - KEYS_OFFSET) / 4;
+    private static final int MIN_LEAF_KEYS = LEAF_CAPACITY / 2;
+    // Inner pages store up to INNER_CAPACITY keys followed by one more child
+    private static final int INNER_CAPACITY = (PAGE_SIZE - KEYS_OFFSET - 4) / 8;
+    private static final int MIN_INNER_KEYS = INNER_CAPACITY / 2;
+    private static final int CHILDREN_OFFSET = KEYS_OFFSET + 4 * INNER_CAPACITY;
+    // Free-list pages: type, id count, next page, then the free page ids
+    private static final int NEXT_OFFSET = 8;
+    private static final int FREE_IDS_OFFSET = 12;
+    private static final int FREE_LIST_CAPACITY = (PAGE_SIZE - FREE_IDS_OFFSET) / 4;
+
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments;
+    private final byte[] pageBuffer;
+    private final int[] scratchKeys;
+    private final int[] scratchChildren;
+    private final int[] pathPages;
+    private final int[] pathIndexes;
+
+    private long transaction;
+    private int root;
+    private int height;
+    private long size;
+    private int pageCount;
+    // Pages written since the last commit, they may be modified in place
+    private BitSet dirty;
+    // Pages the committed version does not reference, free to reuse now
+    private IntStack free;
+    // Pages of the committed version dropped since, reusable after the commit
+    private IntStack released;
+    // Pages holding the committed free-list itself
+    private IntStack freeListPages;
+
+    private MappedBPlusTree(FileChannel channel) throws IOException {
+        this.channel = channel;
+        segments = new ArrayList<>();
+        pageBuffer = new byte[PAGE_SIZE];
+        scratchKeys = new int[LEAF_CAPACITY + 1];
+        scratchChildren = new int[INNER_CAPACITY + 2];
+        pathPages = new int[MAX_HEIGHT];
+        pathIndexes = new int[MAX_HEIGHT];
+        if (channel.size() == 0) {
+            create();
+        } else {
+            load();
+        }
+    }
+
+    // Opens the tree stored in file, creating an empty one when the file is new
+    public static MappedBPlusTree open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new MappedBPlusTree(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void create() {
+        resetTransaction();
+        transaction = 0;
+        pageCount = HEADER_PAGES;
+        ensureMapped(pageCount);
+        root = allocate();
+        putInt(root, TYPE_OFFSET, LEAF);
+        putInt(root, COUNT_OFFSET, 0);
+        height = 1;
+        size = 0;
+        commit();
+    }
+
+    private void load() throws IOException {
+        resetTransaction();
+        if (channel.size() < (long) HEADER_PAGES * PAGE_SIZE) {
+            throw new IOException("Not a B+-tree file!");
+        }
+        ensureMapped(HEADER_PAGES);
+        int header = NIL;
+        long newest = -1;
+        for (int page = 0; page < HEADER_PAGES; page++) {
+            if (isValidHeader(page) && getLong(page, TRANSACTION_OFFSET) > newest) {
+                newest = getLong(page, TRANSACTION_OFFSET);
+                header = page;
+            }
+        }
+        if (newest < 0) {
+            throw new IOException("Not a B+-tree file or both headers are corrupted!");
+        }
+        transaction = newest;
+        root = getInt(header, ROOT_OFFSET);
+        height = getInt(header, HEIGHT_OFFSET);
+        size = getLong(header, SIZE_OFFSET);
+        pageCount = getInt(header, PAGE_COUNT_OFFSET);
+        ensureMapped(pageCount);
+        for (int page = getInt(header, FREE_LIST_OFFSET); page != NIL; page = getInt(page, NEXT_OFFSET)) {
+            freeListPages.push(page);
+            int count = getInt(page, COUNT_OFFSET);
+            for (int i = 0; i < count; i++) {
+                free.push(getInt(page, FREE_IDS_OFFSET + 4 * i));
+            }
+        }
+    }
+
+    private void resetTransaction() {
+        dirty = new BitSet();
+        free = new IntStack();
+        released = new IntStack();
+        freeListPages = new IntStack();
+    }
+
+    private boolean isValidHeader(int page) {
+        return getLong(page, MAGIC_OFFSET) == MAGIC
+                && getInt(page, VERSION_OFFSET) == FORMAT_VERSION
+                && getInt(page, PAGE_SIZE_OFFSET) == PAGE_SIZE
+                && getLong(page, CHECKSUM_OFFSET) == headerChecksum(page);
+    }
+
+    private long headerChecksum(int page) {
+        ByteBuffer header = segment(page).duplicate();
+        header.position(offset(page)).limit(offset(page) + CHECKSUM_OFFSET);
+        CRC32 crc = new CRC32();
+        crc.update(header);
+        return crc.getValue();
+    }
+
+    // Makes every update since the last commit durable. The new pages and the
+    // free-list are flushed first, then the older of the two headers is
+    // overwritten to point at them and flushed in turn.
+    public void commit() {
+        if (dirty.isEmpty() && released.isEmpty()) return;
+        int freeListHead = writeFreeList();
+        forceAll();
+
+        int header = (int) ((transaction + 1) % HEADER_PAGES);
+        putLong(header, MAGIC_OFFSET, MAGIC);
+        putInt(header, VERSION_OFFSET, FORMAT_VERSION);
+        putInt(header, PAGE_SIZE_OFFSET, PAGE_SIZE);
+        putLong(header, TRANSACTION_OFFSET, transaction + 1);
+        putInt(header, ROOT_OFFSET, root);
+        putInt(header, HEIGHT_OFFSET, height);
+        putLong(header, SIZE_OFFSET, size);
+        putInt(header, PAGE_COUNT_OFFSET, pageCount);
+        putInt(header, FREE_LIST_OFFSET, freeListHead);
+        putLong(header, CHECKSUM_OFFSET, headerChecksum(header));
+        segments.get(0).force(0, HEADER_PAGES * PAGE_SIZE);
+        transaction++;
+        dirty.clear();
+    }
+
+    // Stores the free page ids of the new version. The list lives in pages that
+    // are free already: neither the committed header nor its free-list refers
+    // to them. The released pages and the pages of the list being replaced are
+    // still referenced by the committed header, so they are only listed as
+    // free. The file grows only when too few free pages are left to hold it.
+    private int writeFreeList() {
+        IntStack listPages = new IntStack();
+        int entries = free.size() + released.size() + freeListPages.size();
+        while ((long) listPages.size() * FREE_LIST_CAPACITY < entries) {
+            if (!free.isEmpty()) {
+                listPages.push(free.pop());
+                entries--;
+            } else {
+                listPages.push(pageCount++);
+            }
+        }
+        ensureMapped(pageCount);
+        while (!released.isEmpty()) {
+            free.push(released.pop());
+        }
+        while (!freeListPages.isEmpty()) {
+            free.push(freeListPages.pop());
+        }
+
+        IntStack listed = new IntStack(Math.max(entries, 1));
+        int next = NIL;
+        while (!listPages.isEmpty()) {
+            int page = listPages.pop();
+            int count = Math.min(FREE_LIST_CAPACITY, free.size());
+            putInt(page, TYPE_OFFSET, FREE_LIST);
+            putInt(page, COUNT_OFFSET, count);
+            putInt(page, NEXT_OFFSET, next);
+            for (int i = 0; i < count; i++) {
+                int id = free.pop();
+                putInt(page, FREE_IDS_OFFSET + 4 * i, id);
+                listed.push(id);
+            }
+            freeListPages.push(page);
+            next = page;
+        }
+        free = listed;
+        return next;
+    }
+
+    // Drops every update since the last commit
+    public void rollback() {
+        try {
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Commits pending updates and releases the file
+    @Override
+    public void close() throws IOException {
+        commit();
+        segments.clear();
+        channel.close();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Pages in the file, headers and free pages included
+    public int pageCount() {
+        return pageCount;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean contains(int key) {
+        int page = root;
+        for (int level = 1; level < height; level++) {
+            page = child(page, childIndex(page, key));
+        }
+        return search(page, count(page), key) >= 0;
+    }
+
+    // Returns the key itself when present, null otherwise
+    @Override
+    public Integer find(Integer value) {
+        return contains(value) ? value : null;
+    }
+
+    public void insert(int key) {
+        int leaf = descend(key);
+        int count = count(leaf);
+        int i = search(leaf, count, key);
+        if (i >= 0) return; // Number already exists
+        leaf = makePathWritable();
+        size++;
+        if (count < LEAF_CAPACITY) {
+            shiftInts(leaf, keyOffset(-i - 1), keyOffset(-i), count + i + 1);
+            putInt(leaf, keyOffset(-i - 1), key);
+            putInt(leaf, COUNT_OFFSET, count + 1);
+            return;
+        }
+
+        // Split overflowing pages bottom-up, each split adds one separator above
+        int right = splitLeaf(leaf, -i - 1, key);
+        int separator = key(right, 0);
+        for (int depth = height - 2; depth >= 0; depth--) {
+            int parent = pathPages[depth];
+            if (count(parent) < INNER_CAPACITY) {
+                insertSeparator(parent, pathIndexes[depth], separator, right);
+                return;
+            }
+            right = splitInner(parent, pathIndexes[depth], separator, right);
+            separator = scratchKeys[(INNER_CAPACITY + 1) / 2];
+        }
+        int newRoot = allocate();
+        putInt(newRoot, TYPE_OFFSET, INNER);
+        putInt(newRoot, COUNT_OFFSET, 1);
+        putInt(newRoot, keyOffset(0), separator);
+        putInt(newRoot, childOffset(0), root);
+        putInt(newRoot, childOffset(1), right);
+        root = newRoot;
+        height++;
+    }
+
+    @Override
+    public void insert(Integer value) {
+        insert(value.intValue());
+    }
+
+    public void remove(int key) {
+        int leaf = descend(key);
+        int count = count(leaf);
+        int i = search(leaf, count, key);
+        if (i < 0) return;
+        leaf = makePathWritable();
+        shiftInts(leaf, keyOffset(i + 1), keyOffset(i), count - i - 1);
+        putInt(leaf, COUNT_OFFSET, count - 1);
+        size--;
+
+        // Separators may keep a removed key: it still splits the key space
+        // correctly, so only underflows need fixing on the way up.
+        for (int depth = height - 2; depth >= 0; depth--) {
+            boolean leafLevel = depth == height - 2;
+            int minKeys = leafLevel ? MIN_LEAF_KEYS : MIN_INNER_KEYS;
+            if (count(pathPages[depth + 1]) >= minKeys) break;
+            fixUnderflow(pathPages[depth], pathIndexes[depth], leafLevel);
+        }
+        if (height > 1 && count(root) == 0) {
+            int oldRoot = root;
+            root = child(root, 0);
+            release(oldRoot);
+            height--;
+        }
+    }
+
+    @Override
+    public void remove(Integer value) {
+        remove(value.intValue());
+    }
+
+    // Records the root-to-leaf path of key and returns the leaf
+    private int descend(int key) {
+        int page = root;
+        for (int depth = 0; depth < height - 1; depth++) {
+            int index = childIndex(page, key);
+            pathPages[depth] = page;
+            pathIndexes[depth] = index;
+            page = child(page, index);
+        }
+        pathPages[height - 1] = page;
+        return page;
+    }
+
+    // Copies the recorded path where it still belongs to the committed
+    // version and returns the writable leaf
+    private int makePathWritable() {
+        root = pathPages[0] = writable(pathPages[0]);
+        for (int depth = 1; depth < height; depth++) {
+            int page = writable(pathPages[depth]);
+            if (page != pathPages[depth]) {
+                setChild(pathPages[depth - 1], pathIndexes[depth - 1], page);
+                pathPages[depth] = page;
+            }
+        }
+        return pathPages[height - 1];
+    }
+
+    // Splits a full leaf while inserting key at index, returns the new right leaf
+    private int splitLeaf(int leaf, int index, int key) {
+        int total = LEAF_CAPACITY + 1;
+        for (int i = 0, j = 0; i < total; i++) {
+            scratchKeys[i] = i == index ? key : key(leaf, j++);
+        }
+        int half = total / 2;
+        int right = allocate();
+        putInt(right, TYPE_OFFSET, LEAF);
+        for (int i = half; i < total; i++) {
+            putInt(right, keyOffset(i - half), scratchKeys[i]);
+        }
+        putInt(right, COUNT_OFFSET, total - half);
+        for (int i = index; i < half; i++) {
+            putInt(leaf, keyOffset(i), scratchKeys[i]);
+        }
+        putInt(leaf, COUNT_OFFSET, half);
+        return right;
+    }
+
+    // Inserts separator at index of a page with room, child following it
+    private void insertSeparator(int page, int index, int separator, int child) {
+        int count = count(page);
+        shiftInts(page, keyOffset(index), keyOffset(index + 1), count - index);
+        shiftInts(page, childOffset(index + 1), childOffset(index + 2), count - index);
+        putInt(page, keyOffset(index), separator);
+        putInt(page, childOffset(index + 1), child);
+        putInt(page, COUNT_OFFSET, count + 1);
+    }
+
+    // Splits a full inner page while inserting separator and child, returns the
+    // new right page. The middle separator, left in scratchKeys, moves up.
+    private int splitInner(int page, int index, int separator, int child) {
+        int total = INNER_CAPACITY + 1;
+        for (int i = 0, j = 0; i < total; i++) {
+            scratchKeys[i] = i == index ? separator : key(page, j++);
+        }
+        for (int i = 0, j = 0; i <= total; i++) {
+            scratchChildren[i] = i == index + 1 ? child : child(page, j++);
+        }
+        int middle = total / 2;
+        int right = allocate();
+        putInt(right, TYPE_OFFSET, INNER);
+        for (int i = middle + 1; i < total; i++) {
+            putInt(right, keyOffset(i - middle - 1), scratchKeys[i]);
+        }
+        for (int i = middle + 1; i <= total; i++) {
+            putInt(right, childOffset(i - middle - 1), scratchChildren[i]);
+        }
+        putInt(right, COUNT_OFFSET, total - middle - 1);
+        for (int i = 0; i < middle; i++) {
+            putInt(page, keyOffset(i), scratchKeys[i]);
+        }
+        for (int i = 0; i <= middle; i++) {
+            putInt(page, childOffset(i), scratchChildren[i]);
+        }
+        putInt(page, COUNT_OFFSET, middle);
+        return right;
+    }
+
+    // Borrows a key from a sibling that can spare one, otherwise merges the
+    // child with a sibling, which removes one separator from parent.
+    private void fixUnderflow(int parent, int index, boolean leafLevel) {
+        int parentCount = count(parent);
+        int minKeys = leafLevel ? MIN_LEAF_KEYS : MIN_INNER_KEYS;
+        int child = child(parent, index);
+        if (index > 0 && count(child(parent, index - 1)) > minKeys) {
+            int left = writableChild(parent, index - 1);
+            putInt(parent, keyOffset(index - 1), borrowFromLeft(child, left, key(parent, index - 1), leafLevel));
+        } else if (index < parentCount && count(child(parent, index + 1)) > minKeys) {
+            int right = writableChild(parent, index + 1);
+            putInt(parent, keyOffset(index), borrowFromRight(child, right, key(parent, index), leafLevel));
+        } else if (index > 0) {
+            int left = writableChild(parent, index - 1);
+            merge(left, child, key(parent, index - 1), leafLevel);
+            release(child);
+            removeSeparator(parent, index - 1);
+        } else {
+            int right = child(parent, index + 1);
+            merge(child, right, key(parent, index), leafLevel);
+            release(right);
+            removeSeparator(parent, index);
+        }
+    }
+
+    // Takes the last entry of left, returns the new separator between them
+    private int borrowFromLeft(int page, int left, int separator, boolean leafLevel) {
+        int count = count(page);
+        int leftCount = count(left);
+        shiftInts(page, keyOffset(0), keyOffset(1), count);
+        if (leafLevel) {
+            putInt(page, keyOffset(0), key(left, leftCount - 1));
+        } else {
+            shiftInts(page, childOffset(0), childOffset(1), count + 1);
+            putInt(page, keyOffset(0), separator);
+            putInt(page, childOffset(0), child(left, leftCount));
+        }
+        putInt(page, COUNT_OFFSET, count + 1);
+        putInt(left, COUNT_OFFSET, leftCount - 1);
+        return leafLevel ? key(page, 0) : key(left, leftCount - 1);
+    }
+
+    // Takes the first entry of right, returns the new separator between them
+    private int borrowFromRight(int page, int right, int separator, boolean leafLevel) {
+        int count = count(page);
+        int rightCount = count(right);
+        int newSeparator;
+        if (leafLevel) {
+            putInt(page, keyOffset(count), key(right, 0));
+            newSeparator = key(right, 1);
+        } else {
+            putInt(page, keyOffset(count), separator);
+            putInt(page, childOffset(count + 1), child(right, 0));
+            newSeparator = key(right, 0);
+            shiftInts(right, childOffset(1), childOffset(0), rightCount);
+        }
+        shiftInts(right, keyOffset(1), keyOffset(0), rightCount - 1);
+        putInt(page, COUNT_OFFSET, count + 1);
+        putInt(right, COUNT_OFFSET, rightCount - 1);
+        return newSeparator;
+    }
+
+    // Appends every entry of right to left, right is then released by the caller
+    private void merge(int left, int right, int separator, boolean leafLevel) {
+        int count = count(left);
+        int rightCount = count(right);
+        if (!leafLevel) {
+            putInt(left, keyOffset(count++), separator);
+            for (int i = 0; i <= rightCount; i++) {
+                putInt(left, childOffset(count + i), child(right, i));
+            }
+        }
+        for (int i = 0; i < rightCount; i++) {
+            putInt(left, keyOffset(count + i), key(right, i));
+        }
+        putInt(left, COUNT_OFFSET, count + rightCount);
+    }
+
+    // Removes separator index and the child following it
+    private void removeSeparator(int page, int index) {
+        int count = count(page);
+        shiftInts(page, keyOffset(index + 1), keyOffset(index), count - index - 1);
+        shiftInts(page, childOffset(index + 2), childOffset(index + 1), count - index - 1);
+        putInt(page, COUNT_OFFSET, count - 1);
+    }
+
+    private int writableChild(int parent, int index) {
+        int page = writable(child(parent, index));
+        setChild(parent, index, page);
+        return page;
+    }
+
+    // Returns page itself when written in this transaction, otherwise a copy
+    private int writable(int page) {
+        if (dirty.get(page)) return page;
+        int copy = allocate();
+        segment(page).get(offset(page), pageBuffer);
+        segment(copy).put(offset(copy), pageBuffer);
+        released.push(page);
+        return copy;
+    }
+
+    private int allocate() {
+        int page;
+        if (!free.isEmpty()) {
+            page = free.pop();
+        } else {
+            page = pageCount++;
+            ensureMapped(pageCount);
+        }
+        dirty.set(page);
+        return page;
+    }
+
+    // Pages of this transaction are reused at once, committed ones after commit
+    private void release(int page) {
+        if (dirty.get(page)) {
+            dirty.clear(page);
+            free.push(page);
+        } else {
+            released.push(page);
+        }
+    }
+
+    // Index of key in the page keys when present, -(insertion point) - 1 otherwise
+    private int search(int page, int count, int key) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midKey = key(page, mid);
+            if (midKey < key) {
+                lo = mid + 1;
+            } else if (midKey > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    // Child to follow for key: separator i is the smallest key of child i + 1
+    private int childIndex(int page, int key) {
+        int i = search(page, count(page), key);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    public void rangeScan(int lo, int hi, IntConsumer action) {
+        if (lo <= hi) {
+            rangeScan(root, 1, lo, hi, action);
+        }
+    }
+
+    private void rangeScan(int page, int level, int lo, int hi, IntConsumer action) {
+        if (level < height) {
+            int last = childIndex(page, hi);
+            for (int i = childIndex(page, lo); i <= last; i++) {
+                rangeScan(child(page, i), level + 1, lo, hi, action);
+            }
+            return;
+        }
+        int count = count(page);
+        int i = search(page, count, lo);
+        for (i = i < 0 ? -i - 1 : i; i < count; i++) {
+            int key = key(page, i);
+            if (key > hi) return;
+            action.accept(key);
+        }
+    }
+
+    @Override
+    public void rangeScan(Integer lo, Integer hi, Consumer<? super Integer> action) {
+        rangeScan(lo.intValue(), hi.intValue(), action::accept);
+    }
+
+    // The keys are collected first and removed individually: O(k log n)
+    public void removeRange(int lo, int hi) {
+        IntStack inRange = new IntStack();
+        rangeScan(lo, hi, inRange::push);
+        while (!inRange.isEmpty()) {
+            remove(inRange.pop());
+        }
+    }
+
+    @Override
+    public void removeRange(Integer lo, Integer hi) {
+        removeRange(lo.intValue(), hi.intValue());
+    }
+
+    public void forEachKeyInOrder(IntConsumer action) {
+        rangeScan(Integer.MIN_VALUE, Integer.MAX_VALUE, action);
+    }
+
+    // All keys live in the leaves, which any depth-first walk reaches from left
+    // to right, so pre- and post-order visit keys in the same order as in-order.
+    public void forEachKeyPreOrder(IntConsumer action) {
+        forEachKeyInOrder(action);
+    }
+
+    public void forEachKeyPostOrder(IntConsumer action) {
+        forEachKeyInOrder(action);
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super Integer> action) {
+        forEachKeyInOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super Integer> action) {
+        forEachKeyPreOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super Integer> action) {
+        forEachKeyPostOrder(action::accept);
+    }
+
+    // nextInt() walks the keys without boxing; the tree must not be modified
+    // while iterating.
+    @Override
+    public PrimitiveIterator.OfInt inOrderIterator() {
+        return new InOrderIterator();
+    }
+
+    // Keeps one (page, index) pair per level, the last one points into a leaf
+    private class InOrderIterator implements PrimitiveIterator.OfInt {
+        private final int[] pages = new int[MAX_HEIGHT];
+        private final int[] indexes = new int[MAX_HEIGHT];
+        private final int leafLevel = height - 1;
+        private boolean exhausted = false;
+
+        public InOrderIterator() {
+            pushLeftBranch(0, root);
+            skipExhaustedLeaves();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !exhausted;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            int key = key(pages[leafLevel], indexes[leafLevel]++);
+            skipExhaustedLeaves();
+            return key;
+        }
+
+        private void pushLeftBranch(int level, int page) {
+            for (; level <= leafLevel; level++) {
+                pages[level] = page;
+                indexes[level] = 0;
+                if (level < leafLevel) page = child(page, 0);
+            }
+        }
+
+        private void skipExhaustedLeaves() {
+            while (indexes[leafLevel] >= count(pages[leafLevel])) {
+                int level = leafLevel - 1;
+                while (level >= 0 && indexes[level] >= count(pages[level])) {
+                    level--;
+                }
+                if (level < 0) {
+                    exhausted = true;
+                    return;
+                }
+                indexes[level]++;
+                pushLeftBranch(level + 1, child(pages[level], indexes[level]));
+            }
+        }
+    }
+
+    @Override
+    public String traverseInOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyInOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePreOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPreOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePostOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPostOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    // Maps the file in segments of at most 1 GiB (a MappedByteBuffer is limited
+    // to 2 GiB); the last segment is remapped with doubling sizes as it grows.
+    private void ensureMapped(int pages) {
+        int lastSegment = (pages - 1) / PAGES_PER_SEGMENT;
+        try {
+            for (int s = 0; s <= lastSegment; s++) {
+                int segmentPages = s == lastSegment ? pages - s * PAGES_PER_SEGMENT : PAGES_PER_SEGMENT;
+                long needed = (long) segmentPages * PAGE_SIZE;
+                MappedByteBuffer current = s < segments.size() ? segments.get(s) : null;
+                if (current != null && current.capacity() >= needed) continue;
+                long mappingSize = current == null ? MIN_MAPPING_SIZE : 2L * current.capacity();
+                mappingSize = Math.min(SEGMENT_SIZE, Math.max(needed, mappingSize));
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, s * SEGMENT_SIZE, mappingSize);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                if (current == null) {
+                    segments.add(mapped);
+                } else {
+                    segments.set(s, mapped);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void forceAll() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private MappedByteBuffer segment(int page) {
+        return segments.get(page / PAGES_PER_SEGMENT);
+    }
+
+    private static int offset(int page) {
+        return (page % PAGES_PER_SEGMENT) * PAGE_SIZE;
+    }
+
+    private static int keyOffset(int index) {
+        return KEYS_OFFSET + 4 * index;
+    }
+
+    private static int childOffset(int index) {
+        return CHILDREN_OFFSET + 4 * index;
+    }
+
+    private int count(int page) {
+        return getInt(page, COUNT_OFFSET);
+    }
+
+    private int key(int page, int index) {
+        return getInt(page, keyOffset(index));
+    }
+
+    private int child(int page, int index) {
+        return getInt(page, childOffset(index));
+    }
+
+    private void setChild(int page, int index, int child) {
+        putInt(page, childOffset(index), child);
+    }
+
+    // Moves count ints within a page, regions may overlap
+    private void shiftInts(int page, int from, int to, int count) {
+        MappedByteBuffer segment = segment(page);
+        int base = offset(page);
+        if (to > from) {
+            for (int i = count - 1; i >= 0; i--) {
+                segment.putInt(base + to + 4 * i, segment.getInt(base + from + 4 * i));
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                segment.putInt(base + to + 4 * i, segment.getInt(base + from + 4 * i));
+            }
+        }
+    }
+
+    private int getInt(int page, int offset) {
+        return segment(page).getInt(offset(page) + offset);
+    }
+
+    private void putInt(int page, int offset, int value) {
+        segment(page).putInt(offset(page) + offset, value);
+    }
+
+    private long getLong(int page, int offset) {
+        return segment(page).getLong(offset(page) + offset);
+    }
+
+    private void putLong(int page, int offset, long value) {
+        segment(page).putLong(offset(page) + offset, value);
+    }
+}
@@ -0,0 +1,109 @@
+package tree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// AVL tree over int keys whose nodes live outside the Java heap. Same
+// algorithms as IntAVLTree (both are SlotAVLTree), but every node is a fixed
+// 16-byte record (key, height, left, right) in a direct buffer. The heap only
+// holds one buffer per chunk of 2^20 nodes, so the GC has a handful of objects
+// to trace however big the tree gets. Chunks are allocated as the tree grows
+// and are never moved.
+//
+// The records share the lifetime of the tree: close() drops the references to
+// every chunk at once, and any later operation throws IllegalStateException.
+// The native memory itself is only released once the GC has collected the
+// buffers and run their cleaners, not when close() returns. Not thread safe.
+public class OffHeapAVLTree extends SlotAVLTree implements AutoCloseable {
+
+    private static final int RECORD_SIZE = 16;
+    private static final int KEY_OFFSET = 0;
+    private static final int HEIGHT_OFFSET = 4;
+    private static final int LEFT_OFFSET = 8;
+    private static final int RIGHT_OFFSET = 12;
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private List<ByteBuffer> chunks;
+
+    public OffHeapAVLTree() {
+        chunks = new ArrayList<>();
+    }
+
+    // Drops the off-heap records, the tree cannot be used afterwards. Their
+    // memory is freed when the GC collects the buffers.
+    @Override
+    public void close() {
+        chunks = null;
+        clear();
+    }
+
+    // Off-heap bytes reserved by the tree, including free records
+    public long reservedBytes() {
+        return chunks == null ? 0 : (long) chunks.size() * (RECORD_SIZE << CHUNK_SHIFT);
+    }
+
+    @Override
+    protected void checkOpen() {
+        if (chunks == null) {
+            throw new IllegalStateException("Tree is closed!");
+        }
+    }
+
+    @Override
+    protected void reserve(int slot) {
+        if ((slot & CHUNK_MASK) == 0) {
+            chunks.add(ByteBuffer.allocateDirect(RECORD_SIZE << CHUNK_SHIFT).order(ByteOrder.nativeOrder()));
+        }
+    }
+
+    private ByteBuffer chunk(int node) {
+        return chunks.get(node >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int node) {
+        return (node & CHUNK_MASK) * RECORD_SIZE;
+    }
+
+    @Override
+    protected int key(int node) {
+        return chunk(node).getInt(offset(node) + KEY_OFFSET);
+    }
+
+    @Override
+    protected void setKey(int node, int key) {
+        chunk(node).putInt(offset(node) + KEY_OFFSET, key);
+    }
+
+    @Override
+    protected int storedHeight(int node) {
+        return chunk(node).getInt(offset(node) + HEIGHT_OFFSET);
+    }
+
+    @Override
+    protected void setHeight(int node, int height) {
+        chunk(node).putInt(offset(node) + HEIGHT_OFFSET, height);
+    }
+
+    @Override
+    protected int left(int node) {
+        return chunk(node).getInt(offset(node) + LEFT_OFFSET);
+    }
+
+    @Override
+    protected void setLeft(int node, int left) {
+        chunk(node).putInt(offset(node) + LEFT_OFFSET, left);
+    }
+
+    @Override
+    protected int right(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT_OFFSET);
+    }
+
+    @Override
+    protected void setRight(int node, int right) {
+        chunk(node).putInt(offset(node) + RIGHT_OFFSET, right);
+    }
+}
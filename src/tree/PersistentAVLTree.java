@@ -0,0 +1,321 @@
+package tree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Persistent (path-copying) AVL tree. Nodes are immutable: an update copies the
+// O(log n) nodes on the path from the root to the changed position and shares
+// every other subtree with the previous version, so old versions stay valid
+// forever and snapshot() is O(1).
+//
+// The Tree methods move this instance to the new version. They are meant for a
+// single writer; readers can take a snapshot() and scan it without locks while
+// the writer keeps going, since a published version is never modified.
+public class PersistentAVLTree<T extends Comparable<T>> implements Tree<T, T> {
+
+    private static final int MAX_HEIGHT = 64;
+
+    private volatile Node<T> root;
+
+    public PersistentAVLTree() {
+        this(null);
+    }
+
+    private PersistentAVLTree(Node<T> root) {
+        this.root = root;
+    }
+
+    // Frozen view of the current version, later updates do not affect it
+    public PersistentAVLTree<T> snapshot() {
+        return new PersistentAVLTree<>(root);
+    }
+
+    // New version with value added, this version is left unchanged
+    public PersistentAVLTree<T> inserted(T value) {
+        Node<T> current = root;
+        Node<T> updated = insert(current, value);
+        return updated == current ? this : new PersistentAVLTree<>(updated);
+    }
+
+    // New version without value, this version is left unchanged
+    public PersistentAVLTree<T> removed(T value) {
+        Node<T> current = root;
+        Node<T> updated = remove(current, value);
+        return updated == current ? this : new PersistentAVLTree<>(updated);
+    }
+
+    @Override
+    public void insert(T value) {
+        root = insert(root, value);
+    }
+
+    // Returns the same node when value is already present, so an unchanged
+    // subtree is never copied
+    private Node<T> insert(Node<T> node, T value) {
+        if (node == null) return new Node<>(value, null, null);
+        int cmp = value.compareTo(node.value);
+        if (cmp < 0) {
+            Node<T> left = insert(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<T> right = insert(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        return node;
+    }
+
+    @Override
+    public void remove(T value) {
+        root = remove(root, value);
+    }
+
+    private Node<T> remove(Node<T> node, T value) {
+        if (node == null) return null;
+        int cmp = value.compareTo(node.value);
+        if (cmp < 0) {
+            Node<T> left = remove(node.left, value);
+            return left == node.left ? node : balance(node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<T> right = remove(node.right, value);
+            return right == node.right ? node : balance(node.value, node.left, right);
+        }
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        return balance(mostLeftChild(node.right).value, node.left, removeSmallest(node.right));
+    }
+
+    // Returns the stored value when present, null otherwise
+    @Override
+    public T find(T value) {
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = value.compareTo(node.value);
+            if (cmp == 0) return node.value;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    public int size() {
+        return Node.size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public int height() {
+        return Node.height(root);
+    }
+
+    // Builds a node from two subtrees whose heights differ by at most two,
+    // copying whichever nodes a single or double rotation has to move.
+    private static <T> Node<T> balance(T value, Node<T> left, Node<T> right) {
+        int leftHeight = Node.height(left);
+        int rightHeight = Node.height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (Node.height(left.left) >= Node.height(left.right)) {
+                return new Node<>(left.value, left.left, new Node<>(value, left.right, right));
+            }
+            Node<T> leftRight = left.right;
+            return new Node<>(leftRight.value,
+                    new Node<>(left.value, left.left, leftRight.left),
+                    new Node<>(value, leftRight.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (Node.height(right.right) >= Node.height(right.left)) {
+                return new Node<>(right.value, new Node<>(value, left, right.left), right.right);
+            }
+            Node<T> rightLeft = right.left;
+            return new Node<>(rightLeft.value,
+                    new Node<>(value, left, rightLeft.left),
+                    new Node<>(right.value, rightLeft.right, right.right));
+        }
+        return new Node<>(value, left, right);
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        rangeScan(root, lo, hi, action);
+    }
+
+    private void rangeScan(Node<T> node, T lo, T hi, Consumer<? super T> action) {
+        if (node == null) return;
+        boolean aboveLo = lo.compareTo(node.value) < 0;
+        boolean belowHi = hi.compareTo(node.value) > 0;
+        if (aboveLo) rangeScan(node.left, lo, hi, action);
+        if (lo.compareTo(node.value) <= 0 && hi.compareTo(node.value) >= 0) action.accept(node.value);
+        if (belowHi) rangeScan(node.right, lo, hi, action);
+    }
+
+    // Splits the tree into (< lo), [lo, hi] and (> hi) and joins the outer parts
+    // back together, copying O(log n) nodes regardless of how many are dropped.
+    @Override
+    public void removeRange(T lo, T hi) {
+        if (lo.compareTo(hi) > 0) return;
+        @SuppressWarnings("unchecked")
+        Node<T>[] parts = (Node<T>[]) new Node<?>[2];
+        split(root, lo, false, parts);
+        Node<T> less = parts[0];
+        split(parts[1], hi, true, parts);
+        root = join(less, parts[1]);
+    }
+
+    // parts[0] receives the values before key (up to and including key when
+    // inclusive), parts[1] the rest. The input tree is left untouched.
+    private void split(Node<T> node, T key, boolean inclusive, Node<T>[] parts) {
+        if (node == null) {
+            parts[0] = parts[1] = null;
+            return;
+        }
+        int cmp = key.compareTo(node.value);
+        boolean goesLeft = inclusive ? cmp >= 0 : cmp > 0;
+        if (goesLeft) {
+            split(node.right, key, inclusive, parts);
+            parts[0] = join(node.left, node.value, parts[0]);
+        } else {
+            split(node.left, key, inclusive, parts);
+            parts[1] = join(parts[1], node.value, node.right);
+        }
+    }
+
+    // Joins two trees whose values are all smaller/bigger than each other
+    private Node<T> join(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        return join(left, mostLeftChild(right).value, removeSmallest(right));
+    }
+
+    private Node<T> mostLeftChild(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node<T> removeSmallest(Node<T> node) {
+        if (node.left == null) return node.right;
+        return balance(node.value, removeSmallest(node.left), node.right);
+    }
+
+    // Joins left < middle < right, copying the spine of the taller tree down to
+    // where the heights are within one of each other.
+    private Node<T> join(Node<T> left, T middle, Node<T> right) {
+        int leftHeight = Node.height(left);
+        int rightHeight = Node.height(right);
+        if (leftHeight > rightHeight + 1) {
+            return balance(left.value, left.left, join(left.right, middle, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            return balance(right.value, join(left, middle, right.left), right.right);
+        }
+        return new Node<>(middle, left, right);
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        forEachInOrder(root, action);
+    }
+
+    private void forEachInOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachInOrder(node.left, action);
+        action.accept(node.value);
+        forEachInOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        forEachPreOrder(root, action);
+    }
+
+    private void forEachPreOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        action.accept(node.value);
+        forEachPreOrder(node.left, action);
+        forEachPreOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        forEachPostOrder(root, action);
+    }
+
+    private void forEachPostOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachPostOrder(node.left, action);
+        forEachPostOrder(node.right, action);
+        action.accept(node.value);
+    }
+
+    // Iterates the version current at the time of the call, updates made while
+    // iterating are not visible and cannot break the iteration.
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new InOrderIterator(root);
+    }
+
+    private class InOrderIterator implements Iterator<T> {
+        @SuppressWarnings("unchecked")
+        private final Node<T>[] stack = (Node<T>[]) new Node<?>[MAX_HEIGHT];
+        private int depth = 0;
+
+        public InOrderIterator(Node<T> root) {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            Node<T> node = stack[--depth];
+            stack[depth] = null;
+            pushLeftBranch(node.right);
+            return node.value;
+        }
+
+        private void pushLeftBranch(Node<T> node) {
+            while (node != null) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    private static class Node<T> {
+        private final T value;
+        private final Node<T> left;
+        private final Node<T> right;
+        private final int height;
+        private final int size;
+
+        public Node(T value, Node<T> left, Node<T> right) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+
+        private static int height(Node<?> node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static int size(Node<?> node) {
+            return node == null ? 0 : node.size;
+        }
+    }
+}
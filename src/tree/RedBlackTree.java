@@ -0,0 +1,435 @@
+package tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Red-black tree. Where AVLTree keeps exact heights and may rotate at every
+// level, a red-black tree only recolours on the way up: an insert needs at most
+// two rotations and a remove at most three, O(1) per update in the worst case,
+// for a height of at most 2 log2(n + 1) instead of ~1.44 log2(n).
+//
+// Nodes keep a parent link, so updates and iteration need no path buffer.
+public class RedBlackTree<T extends Comparable<T>> implements Tree<T, T> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private Node<T> root;
+    private int size;
+    // Per-operation counters, only reported when stats are enabled
+    private int rotationsCount;
+    private int comparisonsCount;
+    private int rebalancesCount;
+    private TreeStats stats;
+
+    public RedBlackTree() {
+        root = null;
+        size = 0;
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+        stats = null;
+    }
+
+    // Records rotations, comparisons, depth and rebalances of every insert,
+    // remove and find into the given stats; null (the default) disables it.
+    public void setStats(TreeStats stats) {
+        this.stats = stats;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Number of levels, computed by walking the whole tree: O(n)
+    public int height() {
+        return height(root);
+    }
+
+    private int height(Node<T> node) {
+        return node == null ? 0 : Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    @Override
+    public void insert(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> parent = null;
+        Node<T> node = root;
+        int cmp = 0;
+        while (node != null) {
+            depth++;
+            cmp = compare(value, node);
+            if (cmp == 0) {
+                recordOperation(TreeStats.Operation.INSERT, depth);
+                return; // Value already exists
+            }
+            parent = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        Node<T> created = new Node<>(value, parent);
+        if (parent == null) {
+            root = created;
+        } else if (cmp < 0) {
+            parent.left = created;
+        } else {
+            parent.right = created;
+        }
+        size++;
+        fixAfterInsertion(created);
+        recordOperation(TreeStats.Operation.INSERT, depth);
+    }
+
+    // A red node with a red parent: a red uncle is fixed by recolouring and
+    // moves the problem two levels up, a black uncle by one or two rotations.
+    private void fixAfterInsertion(Node<T> node) {
+        while (node != root && isRed(node.parent)) {
+            Node<T> parent = node.parent;
+            Node<T> grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                Node<T> uncle = grandparent.right;
+                if (isRed(uncle)) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    rebalancesCount++;
+                    if (node == parent.right) {
+                        node = parent;
+                        rotateLeft(node);
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateRight(grandparent);
+                }
+            } else {
+                Node<T> uncle = grandparent.left;
+                if (isRed(uncle)) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    rebalancesCount++;
+                    if (node == parent.left) {
+                        node = parent;
+                        rotateRight(node);
+                        parent = node.parent;
+                    }
+                    parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    // Returns the stored value when present, null otherwise
+    @Override
+    public T find(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            depth++;
+            int cmp = compare(value, node);
+            if (cmp == 0) break;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        recordOperation(TreeStats.Operation.FIND, depth);
+        return node != null ? node.value : null;
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    @Override
+    public void remove(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            depth++;
+            int cmp = compare(value, node);
+            if (cmp == 0) break;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        if (node != null) {
+            removeNode(node);
+        }
+        recordOperation(TreeStats.Operation.REMOVE, depth);
+    }
+
+    private void removeNode(Node<T> node) {
+        size--;
+        // With two children the successor's value moves here and the
+        // successor, which has no left child, is unlinked instead.
+        if (node.left != null && node.right != null) {
+            Node<T> successor = mostLeftChild(node.right);
+            node.value = successor.value;
+            node = successor;
+        }
+
+        Node<T> replacement = node.left != null ? node.left : node.right;
+        if (replacement != null) {
+            replaceChild(node, replacement);
+            if (node.color == BLACK) {
+                fixAfterDeletion(replacement);
+            }
+        } else if (node.parent == null) {
+            root = null;
+        } else {
+            // A leaf is fixed while still linked, so it can stand in for the
+            // missing child during the fix-up
+            if (node.color == BLACK) {
+                fixAfterDeletion(node);
+            }
+            replaceChild(node, null);
+        }
+        node.parent = node.left = node.right = null;
+    }
+
+    // node carries an extra black: recolour while its sibling has no red child,
+    // otherwise up to three rotations end the fix-up.
+    private void fixAfterDeletion(Node<T> node) {
+        while (node != root && !isRed(node)) {
+            Node<T> parent = node.parent;
+            if (node == parent.left) {
+                Node<T> sibling = parent.right;
+                if (isRed(sibling)) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateLeft(parent);
+                    sibling = parent.right;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.color = RED;
+                    node = parent;
+                } else {
+                    rebalancesCount++;
+                    if (!isRed(sibling.right)) {
+                        sibling.left.color = BLACK;
+                        sibling.color = RED;
+                        rotateRight(sibling);
+                        sibling = parent.right;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.right.color = BLACK;
+                    rotateLeft(parent);
+                    node = root;
+                }
+            } else {
+                Node<T> sibling = parent.left;
+                if (isRed(sibling)) {
+                    sibling.color = BLACK;
+                    parent.color = RED;
+                    rotateRight(parent);
+                    sibling = parent.left;
+                }
+                if (!isRed(sibling.left) && !isRed(sibling.right)) {
+                    sibling.color = RED;
+                    node = parent;
+                } else {
+                    rebalancesCount++;
+                    if (!isRed(sibling.left)) {
+                        sibling.right.color = BLACK;
+                        sibling.color = RED;
+                        rotateLeft(sibling);
+                        sibling = parent.left;
+                    }
+                    sibling.color = parent.color;
+                    parent.color = BLACK;
+                    sibling.left.color = BLACK;
+                    rotateRight(parent);
+                    node = root;
+                }
+            }
+        }
+        node.color = BLACK;
+    }
+
+    // Right element of node now takes its place
+    private void rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        if (right.left != null) right.left.parent = node;
+        replaceChild(node, right);
+        right.left = node;
+        node.parent = right;
+        rotationsCount++;
+    }
+
+    // Left element of node now takes its place
+    private void rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        if (left.right != null) left.right.parent = node;
+        replaceChild(node, left);
+        left.right = node;
+        node.parent = left;
+        rotationsCount++;
+    }
+
+    // Links replacement where node hangs from its parent
+    private void replaceChild(Node<T> node, Node<T> replacement) {
+        Node<T> parent = node.parent;
+        if (replacement != null) replacement.parent = parent;
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private static <T> Node<T> mostLeftChild(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static <T> Node<T> successor(Node<T> node) {
+        if (node.right != null) return mostLeftChild(node.right);
+        Node<T> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        rangeScan(root, lo, hi, action);
+    }
+
+    private void rangeScan(Node<T> node, T lo, T hi, Consumer<? super T> action) {
+        if (node == null) return;
+        int cmpLo = lo.compareTo(node.value);
+        int cmpHi = hi.compareTo(node.value);
+        if (cmpLo < 0) rangeScan(node.left, lo, hi, action);
+        if (cmpLo <= 0 && cmpHi >= 0) action.accept(node.value);
+        if (cmpHi > 0) rangeScan(node.right, lo, hi, action);
+    }
+
+    // The values are collected first and removed individually: O(k log n)
+    @Override
+    public void removeRange(T lo, T hi) {
+        List<T> inRange = new ArrayList<>();
+        rangeScan(lo, hi, inRange::add);
+        for (T value : inRange) {
+            remove(value);
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        forEachInOrder(root, action);
+    }
+
+    private void forEachInOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachInOrder(node.left, action);
+        action.accept(node.value);
+        forEachInOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        forEachPreOrder(root, action);
+    }
+
+    private void forEachPreOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        action.accept(node.value);
+        forEachPreOrder(node.left, action);
+        forEachPreOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        forEachPostOrder(root, action);
+    }
+
+    private void forEachPostOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachPostOrder(node.left, action);
+        forEachPostOrder(node.right, action);
+        action.accept(node.value);
+    }
+
+    // Follows parent links, so the iterator needs no stack; the tree must not
+    // be modified while iterating.
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new Iterator<T>() {
+            private Node<T> next = root != null ? mostLeftChild(root) : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements!");
+                }
+                T value = next.value;
+                next = successor(next);
+                return value;
+            }
+        };
+    }
+
+    private void resetCounters() {
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+    }
+
+    private void recordOperation(TreeStats.Operation operation, int depth) {
+        TreeStats current = stats;
+        if (current != null) {
+            current.record(operation, rotationsCount, comparisonsCount, depth, rebalancesCount);
+        }
+    }
+
+    private int compare(T value, Node<T> node) {
+        comparisonsCount++;
+        return value.compareTo(node.value);
+    }
+
+    private static boolean isRed(Node<?> node) {
+        return node != null && node.color == RED;
+    }
+
+    private static class Node<T> {
+        private T value;
+        private boolean color;
+        private Node<T> left;
+        private Node<T> right;
+        private Node<T> parent;
+
+        public Node(T value, Node<T> parent) {
+            this.value = value;
+            color = RED;
+            left = right = null;
+            this.parent = parent;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package tree;
+
+import stack.IntStack;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+// AVL tree over primitive int keys whose nodes are numbered slots instead of
+// heap objects. The algorithms live here; subclasses only decide where a slot's
+// key, height, left and right child are stored (IntAVLTree: parallel arrays,
+// OffHeapAVLTree: records in direct buffers). Slots are handed out in
+// increasing order, removed ones are chained in a free-list through their left
+// child and reused by later inserts. The Integer methods of Tree are kept for
+// compatibility and simply unbox.
+abstract class SlotAVLTree implements Tree<Integer, Integer> {
+
+    protected static final int NIL = -1;
+    // An AVL tree with 2^31 nodes is at most ~45 levels deep
+    protected static final int MAX_HEIGHT = 64;
+
+    private int root;
+    private int size;
+    private int used;
+    private int freeHead;
+    private final int[] path;
+
+    protected SlotAVLTree() {
+        root = NIL;
+        size = 0;
+        used = 0;
+        freeHead = NIL;
+        path = new int[MAX_HEIGHT];
+    }
+
+    // Makes slot usable, called once for every slot before it is handed out
+    // for the first time
+    protected abstract void reserve(int slot);
+
+    protected abstract int key(int node);
+
+    protected abstract void setKey(int node, int key);
+
+    protected abstract int storedHeight(int node);
+
+    protected abstract void setHeight(int node, int height);
+
+    protected abstract int left(int node);
+
+    protected abstract void setLeft(int node, int left);
+
+    protected abstract int right(int node);
+
+    protected abstract void setRight(int node, int right);
+
+    // Called at the start of every public operation, throws when the storage
+    // cannot be used anymore
+    protected void checkOpen() {
+    }
+
+    // Forgets every slot, the storage itself is left to the subclass
+    protected void clear() {
+        root = NIL;
+        size = 0;
+        used = 0;
+        freeHead = NIL;
+    }
+
+    // Left element of root now becomes root
+    private int rotateRight(int node) {
+        int l = left(node);
+        setLeft(node, right(l));
+        setRight(l, node);
+
+        updateHeight(node);
+        updateHeight(l);
+        return l;
+    }
+
+    // Right element of root now becomes root
+    private int rotateLeft(int node) {
+        int r = right(node);
+        setRight(node, left(r));
+        setLeft(r, node);
+
+        updateHeight(node);
+        updateHeight(r);
+        return r;
+    }
+
+    // Same rules as AVLTree.rebalance
+    private int rebalance(int node) {
+        updateHeight(node);
+        int balance = balanceFactor(node);
+        if (balance > 1) {
+            if (balanceFactor(right(node)) < 0) {
+                setRight(node, rotateRight(right(node)));
+            }
+            node = rotateLeft(node);
+        } else if (balance < -1) {
+            if (balanceFactor(left(node)) > 0) {
+                setLeft(node, rotateLeft(left(node)));
+            }
+            node = rotateRight(node);
+        }
+        return node;
+    }
+
+    public void insert(int key) {
+        checkOpen();
+        if (root == NIL) {
+            root = allocate(key);
+            return;
+        }
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            path[depth++] = node;
+            int k = key(node);
+            if (key < k) {
+                node = left(node);
+            } else if (key > k) {
+                node = right(node);
+            } else {
+                return; // Number already exists
+            }
+        }
+        int e = allocate(key);
+        int parent = path[depth - 1];
+        if (key < key(parent)) {
+            setLeft(parent, e);
+        } else {
+            setRight(parent, e);
+        }
+        rebalancePath(depth);
+    }
+
+    @Override
+    public void insert(Integer value) {
+        insert(value.intValue());
+    }
+
+    public boolean contains(int key) {
+        checkOpen();
+        int node = root;
+        while (node != NIL) {
+            int k = key(node);
+            if (key == k) return true;
+            node = key < k ? left(node) : right(node);
+        }
+        return false;
+    }
+
+    // Returns the key itself when present, null otherwise
+    @Override
+    public Integer find(Integer value) {
+        return contains(value) ? value : null;
+    }
+
+    public void remove(int key) {
+        checkOpen();
+        int depth = 0;
+        int node = root;
+        while (node != NIL && key(node) != key) {
+            path[depth++] = node;
+            node = key < key(node) ? left(node) : right(node);
+        }
+        if (node == NIL) return;
+        path[depth++] = node;
+
+        // In case of 2 children, take the smallest key in the right subtree and
+        // unlink that node instead, it has no left child.
+        if (left(node) != NIL && right(node) != NIL) {
+            int successor = right(node);
+            path[depth++] = successor;
+            while (left(successor) != NIL) {
+                successor = left(successor);
+                path[depth++] = successor;
+            }
+            setKey(node, key(successor));
+            node = successor;
+        }
+
+        int child = left(node) != NIL ? left(node) : right(node);
+        depth--;
+        if (depth == 0) {
+            root = child;
+        } else {
+            replaceChild(path[depth - 1], node, child);
+        }
+        release(node);
+        rebalancePath(depth);
+    }
+
+    @Override
+    public void remove(Integer value) {
+        remove(value.intValue());
+    }
+
+    public void rangeScan(int lo, int hi, IntConsumer action) {
+        checkOpen();
+        rangeScan(root, lo, hi, action);
+    }
+
+    private void rangeScan(int node, int lo, int hi, IntConsumer action) {
+        if (node == NIL) return;
+        int key = key(node);
+        if (lo < key) rangeScan(left(node), lo, hi, action);
+        if (lo <= key && key <= hi) action.accept(key);
+        if (hi > key) rangeScan(right(node), lo, hi, action);
+    }
+
+    @Override
+    public void rangeScan(Integer lo, Integer hi, Consumer<? super Integer> action) {
+        rangeScan(lo.intValue(), hi.intValue(), action::accept);
+    }
+
+    // Slots are recycled one by one through the free-list, so the keys are
+    // collected first and removed individually: O(k log n).
+    public void removeRange(int lo, int hi) {
+        IntStack inRange = new IntStack();
+        rangeScan(lo, hi, inRange::push);
+        while (!inRange.isEmpty()) {
+            remove(inRange.pop());
+        }
+    }
+
+    @Override
+    public void removeRange(Integer lo, Integer hi) {
+        removeRange(lo.intValue(), hi.intValue());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Walks the recorded root-to-leaf path bottom-up, stopping as soon as a
+    // subtree keeps both its root and its height, since nothing above changes.
+    private void rebalancePath(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = storedHeight(node);
+            int subRoot = rebalance(node);
+            if (subRoot == node && storedHeight(node) == oldHeight) {
+                return;
+            }
+            if (i == 0) {
+                root = subRoot;
+            } else {
+                replaceChild(path[i - 1], node, subRoot);
+            }
+        }
+    }
+
+    private void replaceChild(int parent, int oldChild, int newChild) {
+        if (left(parent) == oldChild) {
+            setLeft(parent, newChild);
+        } else {
+            setRight(parent, newChild);
+        }
+    }
+
+    private int allocate(int key) {
+        int node;
+        if (freeHead != NIL) {
+            node = freeHead;
+            freeHead = left(node);
+        } else {
+            if (used == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Tree is full!");
+            }
+            reserve(used);
+            node = used++;
+        }
+        setKey(node, key);
+        setHeight(node, 0);
+        setLeft(node, NIL);
+        setRight(node, NIL);
+        size++;
+        return node;
+    }
+
+    private void release(int node) {
+        setLeft(node, freeHead);
+        setRight(node, NIL);
+        freeHead = node;
+        size--;
+    }
+
+    private int height(int node) {
+        return node != NIL ? storedHeight(node) : -1;
+    }
+
+    private void updateHeight(int node) {
+        setHeight(node, Math.max(height(left(node)), height(right(node))) + 1);
+    }
+
+    private int balanceFactor(int node) {
+        return height(right(node)) - height(left(node));
+    }
+
+    public void forEachKeyInOrder(IntConsumer action) {
+        checkOpen();
+        forEachKeyInOrder(root, action);
+    }
+
+    private void forEachKeyInOrder(int node, IntConsumer action) {
+        if (node != NIL) {
+            forEachKeyInOrder(left(node), action);
+            action.accept(key(node));
+            forEachKeyInOrder(right(node), action);
+        }
+    }
+
+    public void forEachKeyPreOrder(IntConsumer action) {
+        checkOpen();
+        forEachKeyPreOrder(root, action);
+    }
+
+    private void forEachKeyPreOrder(int node, IntConsumer action) {
+        if (node != NIL) {
+            action.accept(key(node));
+            forEachKeyPreOrder(left(node), action);
+            forEachKeyPreOrder(right(node), action);
+        }
+    }
+
+    public void forEachKeyPostOrder(IntConsumer action) {
+        checkOpen();
+        forEachKeyPostOrder(root, action);
+    }
+
+    private void forEachKeyPostOrder(int node, IntConsumer action) {
+        if (node != NIL) {
+            forEachKeyPostOrder(left(node), action);
+            forEachKeyPostOrder(right(node), action);
+            action.accept(key(node));
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super Integer> action) {
+        forEachKeyInOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super Integer> action) {
+        forEachKeyPreOrder(action::accept);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super Integer> action) {
+        forEachKeyPostOrder(action::accept);
+    }
+
+    // nextInt() walks the keys without boxing; the tree must not be modified
+    // while iterating.
+    @Override
+    public PrimitiveIterator.OfInt inOrderIterator() {
+        checkOpen();
+        return new InOrderIterator();
+    }
+
+    private class InOrderIterator implements PrimitiveIterator.OfInt {
+        private final int[] stack = new int[MAX_HEIGHT];
+        private int depth = 0;
+
+        public InOrderIterator() {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            int node = stack[--depth];
+            pushLeftBranch(right(node));
+            return key(node);
+        }
+
+        private void pushLeftBranch(int node) {
+            while (node != NIL) {
+                stack[depth++] = node;
+                node = left(node);
+            }
+        }
+    }
+
+    @Override
+    public String traverseInOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyInOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePreOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPreOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+
+    @Override
+    public String traversePostOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachKeyPostOrder(key -> sb.append(key).append(' '));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,352 @@
+package tree;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Self-adjusting binary search tree (Sleator and Tarjan, "Self-Adjusting Binary
+// Search Trees"). Every access splays the value to the root, so recently and
+// frequently accessed values stay near the top: a value with access frequency p
+// costs O(log 1/p) amortized, which beats a balanced tree on skewed workloads.
+// Every operation is O(log n) amortized, a single one may take O(n).
+//
+// Splaying is top-down and iterative: the tree is split into left and right
+// parts on the way down and reassembled under the accessed node, so no parent
+// links or path buffer are needed. find() restructures the tree too, the tree
+// is not safe for concurrent readers.
+public class SplayTree<T extends Comparable<T>> implements Tree<T, T> {
+
+    private Node<T> root;
+    // Reused as the temporary root of the left and right parts while splaying
+    private final Node<T> header;
+    // Per-operation counters, only reported when stats are enabled
+    private int rotationsCount;
+    private int comparisonsCount;
+    private int depth;
+    private TreeStats stats;
+
+    public SplayTree() {
+        root = null;
+        header = new Node<>(null);
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        depth = 0;
+        stats = null;
+    }
+
+    // Records rotations, comparisons and depth of every insert, remove and find
+    // into the given stats; null (the default) disables it.
+    public void setStats(TreeStats stats) {
+        this.stats = stats;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @Override
+    public void insert(T value) {
+        resetCounters();
+        if (root == null) {
+            root = new Node<>(value);
+            recordOperation(TreeStats.Operation.INSERT);
+            return;
+        }
+        root = splay(root, value);
+        int cmp = compare(value, root);
+        if (cmp != 0) {
+            Node<T> created = new Node<>(value);
+            if (cmp < 0) {
+                created.left = root.left;
+                created.right = root;
+                root.left = null;
+            } else {
+                created.right = root.right;
+                created.left = root;
+                root.right = null;
+            }
+            root = created;
+        }
+        recordOperation(TreeStats.Operation.INSERT);
+    }
+
+    // Returns the stored value when present, null otherwise. Either way the
+    // last node on the search path becomes the root.
+    @Override
+    public T find(T value) {
+        resetCounters();
+        T found = null;
+        if (root != null) {
+            root = splay(root, value);
+            if (compare(value, root) == 0) {
+                found = root.value;
+            }
+        }
+        recordOperation(TreeStats.Operation.FIND);
+        return found;
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    // The rotations and comparisons of the join are recorded, its depth is
+    // not: the depth stays the length of the access path, as for find.
+    @Override
+    public void remove(T value) {
+        resetCounters();
+        if (root != null) {
+            root = splay(root, value);
+            if (compare(value, root) == 0) {
+                int accessDepth = depth;
+                root = join(root.left, root.right, value);
+                depth = accessDepth;
+            }
+        }
+        recordOperation(TreeStats.Operation.REMOVE);
+    }
+
+    // Joins two trees whose values are all smaller/bigger than key: splaying
+    // key in the left one brings its biggest value to the root, which then has
+    // no right child.
+    private Node<T> join(Node<T> left, Node<T> right, T key) {
+        if (left == null) return right;
+        left = splay(left, key);
+        left.right = right;
+        return left;
+    }
+
+    // Top-down splay of key in the tree rooted at node. Returns the new root:
+    // the node holding key, or the last node on its search path.
+    private Node<T> splay(Node<T> node, T key) {
+        Node<T> leftTail = header;
+        Node<T> rightTail = header;
+        header.left = header.right = null;
+        while (true) {
+            depth++;
+            int cmp = compare(key, node);
+            if (cmp < 0) {
+                if (node.left == null) break;
+                if (compare(key, node.left) < 0) {
+                    node = rotateRight(node); // Zig-zig
+                    depth++;
+                    if (node.left == null) break;
+                }
+                // Link right: node and its right subtree are bigger than key
+                rightTail.left = node;
+                rightTail = node;
+                node = node.left;
+            } else if (cmp > 0) {
+                if (node.right == null) break;
+                if (compare(key, node.right) > 0) {
+                    node = rotateLeft(node); // Zig-zig
+                    depth++;
+                    if (node.right == null) break;
+                }
+                // Link left: node and its left subtree are smaller than key
+                leftTail.right = node;
+                leftTail = node;
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        // Reassemble: the parts hang below the new root
+        leftTail.right = node.left;
+        rightTail.left = node.right;
+        node.left = header.right;
+        node.right = header.left;
+        header.left = header.right = null;
+        return node;
+    }
+
+    // Left element of node now becomes root
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        rotationsCount++;
+        return left;
+    }
+
+    // Right element of node now becomes root
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        rotationsCount++;
+        return right;
+    }
+
+    // Does not splay, so scans leave the shape of the tree alone
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                if (lo.compareTo(node.value) > 0) {
+                    node = node.right; // Whole left subtree is below the range
+                } else {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+            if (stack.isEmpty()) return;
+            node = stack.pop();
+            if (hi.compareTo(node.value) < 0) return;
+            action.accept(node.value);
+            node = node.right;
+        }
+    }
+
+    // Splaying lo and then hi cuts the range out as one subtree, after which
+    // the outer parts are joined: O(log n) amortized. Recorded as one remove
+    // whose depth adds up the levels of all three splays.
+    @Override
+    public void removeRange(T lo, T hi) {
+        if (lo.compareTo(hi) > 0 || root == null) return;
+        resetCounters();
+        Node<T> node = splay(root, lo);
+        Node<T> less;
+        Node<T> rest;
+        if (compare(lo, node) > 0) {
+            less = node;
+            rest = node.right;
+            node.right = null;
+        } else {
+            less = node.left;
+            rest = node;
+            node.left = null;
+        }
+        Node<T> greater = null;
+        if (rest != null) {
+            rest = splay(rest, hi);
+            if (compare(hi, rest) < 0) {
+                greater = rest;
+                greater.left = null;
+            } else {
+                greater = rest.right;
+            }
+        }
+        root = join(less, greater, hi);
+        recordOperation(TreeStats.Operation.REMOVE);
+    }
+
+    // Traversals use an explicit stack, a splay tree can temporarily be as
+    // deep as a list.
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            action.accept(node.value);
+            node = node.right;
+        }
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        if (root != null) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            action.accept(node.value);
+            if (node.right != null) stack.push(node.right);
+            if (node.left != null) stack.push(node.left);
+        }
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        Node<T> node = root;
+        Node<T> lastVisited = null;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            Node<T> top = stack.peek();
+            if (top.right != null && top.right != lastVisited) {
+                node = top.right;
+            } else {
+                action.accept(top.value);
+                lastVisited = stack.pop();
+            }
+        }
+    }
+
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new InOrderIterator();
+    }
+
+    // The tree must not be accessed (find included) while iterating
+    private class InOrderIterator implements Iterator<T> {
+        private final Deque<Node<T>> stack = new ArrayDeque<>();
+
+        public InOrderIterator() {
+            pushLeftBranch(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements!");
+            }
+            Node<T> node = stack.pop();
+            pushLeftBranch(node.right);
+            return node.value;
+        }
+
+        private void pushLeftBranch(Node<T> node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    private void resetCounters() {
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        depth = 0;
+    }
+
+    // Splaying has no separate rebalancing step, so no rebalances are reported
+    private void recordOperation(TreeStats.Operation operation) {
+        TreeStats current = stats;
+        if (current != null) {
+            current.record(operation, rotationsCount, comparisonsCount, depth, 0);
+        }
+    }
+
+    private int compare(T value, Node<T> node) {
+        comparisonsCount++;
+        return value.compareTo(node.value);
+    }
+
+    private static class Node<T> {
+        private final T value;
+        private Node<T> left;
+        private Node<T> right;
+
+        public Node(T value) {
+            this.value = value;
+            left = right = null;
+        }
+    }
+}
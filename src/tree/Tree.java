@@ -1,5 +1,8 @@
 package tree;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
+
 public interface Tree<T, E> {
 
     void insert(T value);
@@ -8,9 +11,36 @@ public interface Tree<T, E> {
 
     void remove(T value);
 
-    String traverseInOrder();
+    // Visit every value in [lo, hi] in order, skipping subtrees outside the range
+    void rangeScan(T lo, T hi, Consumer<? super T> action);
+
+    // Remove every value in [lo, hi]
+    void removeRange(T lo, T hi);
+
+    // Visit every value with O(height) extra memory and no per-node allocation
+    void forEachInOrder(Consumer<? super T> action);
+
+    void forEachPreOrder(Consumer<? super T> action);
+
+    void forEachPostOrder(Consumer<? super T> action);
+
+    Iterator<T> inOrderIterator();
+
+    default String traverseInOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachInOrder(value -> sb.append(value).append(' '));
+        return sb.toString();
+    }
 
-    String traversePreOrder();
+    default String traversePreOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachPreOrder(value -> sb.append(value).append(' '));
+        return sb.toString();
+    }
 
-    String traversePostOrder();
+    default String traversePostOrder() {
+        StringBuilder sb = new StringBuilder();
+        forEachPostOrder(value -> sb.append(value).append(' '));
+        return sb.toString();
+    }
 }
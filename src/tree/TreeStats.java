@@ -0,0 +1,102 @@
+package tree;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Opt-in instrumentation for balanced trees. Counters are LongAdders, so a
+// TreeStats can be shared by several trees (and threads) and read at any time
+// by a metrics exporter without slowing down the recording side.
+public class TreeStats {
+
+    public enum Operation {
+        INSERT,
+        REMOVE,
+        FIND
+    }
+
+    // Called synchronously after every recorded operation, keep it cheap
+    public interface Listener {
+        void onOperation(Operation operation, int rotations, int comparisons, int depth, int rebalances);
+    }
+
+    private final LongAdder operations;
+    private final LongAdder rotations;
+    private final LongAdder comparisons;
+    private final LongAdder rebalances;
+    private final LongAdder totalDepth;
+    private final LongAccumulator maxDepth;
+    private volatile Listener listener;
+
+    public TreeStats() {
+        this(null);
+    }
+
+    public TreeStats(Listener listener) {
+        operations = new LongAdder();
+        rotations = new LongAdder();
+        comparisons = new LongAdder();
+        rebalances = new LongAdder();
+        totalDepth = new LongAdder();
+        maxDepth = new LongAccumulator(Math::max, 0);
+        this.listener = listener;
+    }
+
+    // rebalances is the number of nodes that needed a (single or double) rotation
+    public void record(Operation operation, int rotations, int comparisons, int depth, int rebalances) {
+        operations.increment();
+        if (rotations > 0) this.rotations.add(rotations);
+        this.comparisons.add(comparisons);
+        if (rebalances > 0) this.rebalances.add(rebalances);
+        totalDepth.add(depth);
+        maxDepth.accumulate(depth);
+        Listener current = listener;
+        if (current != null) {
+            current.onOperation(operation, rotations, comparisons, depth, rebalances);
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public long operations() {
+        return operations.sum();
+    }
+
+    public long rotations() {
+        return rotations.sum();
+    }
+
+    public long comparisons() {
+        return comparisons.sum();
+    }
+
+    public long rebalances() {
+        return rebalances.sum();
+    }
+
+    public long maxDepth() {
+        return maxDepth.get();
+    }
+
+    // Mean number of nodes visited per operation
+    public double averageDepth() {
+        long count = operations();
+        return count == 0 ? 0 : (double) totalDepth.sum() / count;
+    }
+
+    public void reset() {
+        operations.reset();
+        rotations.reset();
+        comparisons.reset();
+        rebalances.reset();
+        totalDepth.reset();
+        maxDepth.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TreeStats[operations=%d, rotations=%d, comparisons=%d, rebalances=%d, averageDepth=%.2f, maxDepth=%d]",
+                operations(), rotations(), comparisons(), rebalances(), averageDepth(), maxDepth());
+    }
+}
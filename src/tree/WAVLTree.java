@@ -0,0 +1,423 @@
+package tree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Weak AVL tree (Haeupler, Sen and Tarjan, "Rank-Balanced Trees"). Every node
+// has a rank; the rank difference to each child is 1 or 2 (a missing child has
+// rank -1) and leaves have rank 0. Without deletions it is exactly an AVL tree,
+// deletions are allowed to leave 2,2 inner nodes behind. Rebalancing promotes
+// or demotes ranks on the way up and needs at most two rotations per insert or
+// remove; the amortized number of rank changes is O(1) as well, where AVLTree
+// may update heights and rotate all the way to the root on removals.
+//
+// Nodes keep a parent link, so updates and iteration need no path buffer.
+public class WAVLTree<T extends Comparable<T>> implements Tree<T, T> {
+
+    private Node<T> root;
+    private int size;
+    // Per-operation counters, only reported when stats are enabled
+    private int rotationsCount;
+    private int comparisonsCount;
+    private int rebalancesCount;
+    private TreeStats stats;
+
+    public WAVLTree() {
+        root = null;
+        size = 0;
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+        stats = null;
+    }
+
+    // Records rotations, comparisons, depth and rebalances of every insert,
+    // remove and find into the given stats; null (the default) disables it.
+    public void setStats(TreeStats stats) {
+        this.stats = stats;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Number of levels, computed by walking the whole tree: O(n)
+    public int height() {
+        return height(root);
+    }
+
+    private int height(Node<T> node) {
+        return node == null ? 0 : Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    @Override
+    public void insert(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> parent = null;
+        Node<T> node = root;
+        int cmp = 0;
+        while (node != null) {
+            depth++;
+            cmp = compare(value, node);
+            if (cmp == 0) {
+                recordOperation(TreeStats.Operation.INSERT, depth);
+                return; // Value already exists
+            }
+            parent = node;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        Node<T> created = new Node<>(value, parent);
+        if (parent == null) {
+            root = created;
+        } else if (cmp < 0) {
+            parent.left = created;
+        } else {
+            parent.right = created;
+        }
+        size++;
+        fixAfterInsertion(created);
+        recordOperation(TreeStats.Operation.INSERT, depth);
+    }
+
+    // node is a 0-child: promote the parent while its other child is a
+    // 1-child, otherwise one or two rotations restore the ranks.
+    private void fixAfterInsertion(Node<T> node) {
+        Node<T> parent = node.parent;
+        while (parent != null && parent.rank == node.rank) {
+            Node<T> sibling = parent.left == node ? parent.right : parent.left;
+            if (parent.rank - rank(sibling) == 1) {
+                parent.rank++;
+                node = parent;
+                parent = node.parent;
+                continue;
+            }
+            rebalancesCount++;
+            if (node == parent.left) {
+                Node<T> inner = node.right;
+                if (inner == null || node.rank - inner.rank == 2) {
+                    rotateRight(parent);
+                    parent.rank--;
+                } else {
+                    rotateLeft(node);
+                    rotateRight(parent);
+                    inner.rank++;
+                    node.rank--;
+                    parent.rank--;
+                }
+            } else {
+                Node<T> inner = node.left;
+                if (inner == null || node.rank - inner.rank == 2) {
+                    rotateLeft(parent);
+                    parent.rank--;
+                } else {
+                    rotateRight(node);
+                    rotateLeft(parent);
+                    inner.rank++;
+                    node.rank--;
+                    parent.rank--;
+                }
+            }
+            return;
+        }
+    }
+
+    // Returns the stored value when present, null otherwise
+    @Override
+    public T find(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            depth++;
+            int cmp = compare(value, node);
+            if (cmp == 0) break;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        recordOperation(TreeStats.Operation.FIND, depth);
+        return node != null ? node.value : null;
+    }
+
+    public boolean contains(T value) {
+        return find(value) != null;
+    }
+
+    @Override
+    public void remove(T value) {
+        resetCounters();
+        int depth = 0;
+        Node<T> node = root;
+        while (node != null) {
+            depth++;
+            int cmp = compare(value, node);
+            if (cmp == 0) break;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        if (node != null) {
+            removeNode(node);
+        }
+        recordOperation(TreeStats.Operation.REMOVE, depth);
+    }
+
+    private void removeNode(Node<T> node) {
+        size--;
+        // With two children the successor's value moves here and the
+        // successor, which has no left child, is unlinked instead.
+        if (node.left != null && node.right != null) {
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.value = successor.value;
+            node = successor;
+        }
+
+        Node<T> parent = node.parent;
+        Node<T> child = node.left != null ? node.left : node.right;
+        boolean wasLeft = parent != null && parent.left == node;
+        replaceChild(node, child);
+        node.parent = node.left = node.right = null;
+        if (parent != null) {
+            fixAfterDeletion(parent, wasLeft);
+        }
+    }
+
+    // The child of parent on the given side may now be a 3-child, or parent a
+    // 2,2 leaf. Demotions move the problem up; a rotation ends the fix-up.
+    private void fixAfterDeletion(Node<T> parent, boolean leftSide) {
+        if (parent.left == null && parent.right == null && parent.rank == 1) {
+            parent.rank = 0;
+            Node<T> grandparent = parent.parent;
+            if (grandparent == null) return;
+            leftSide = grandparent.left == parent;
+            parent = grandparent;
+        }
+        while (parent.rank - rank(leftSide ? parent.left : parent.right) == 3) {
+            Node<T> sibling = leftSide ? parent.right : parent.left;
+            if (parent.rank - sibling.rank == 2) {
+                parent.rank--;
+            } else if (sibling.rank - rank(sibling.left) == 2 && sibling.rank - rank(sibling.right) == 2) {
+                parent.rank--;
+                sibling.rank--;
+            } else {
+                rebalancesCount++;
+                rotateAfterDeletion(parent, sibling, leftSide);
+                return;
+            }
+            Node<T> grandparent = parent.parent;
+            if (grandparent == null) return;
+            leftSide = grandparent.left == parent;
+            parent = grandparent;
+        }
+    }
+
+    // sibling is a 1-child with a 1-child: a single rotation when that is its
+    // outer child, a double rotation through the inner child otherwise.
+    private void rotateAfterDeletion(Node<T> parent, Node<T> sibling, boolean leftSide) {
+        Node<T> outer = leftSide ? sibling.right : sibling.left;
+        if (sibling.rank - rank(outer) == 1) {
+            if (leftSide) {
+                rotateLeft(parent);
+            } else {
+                rotateRight(parent);
+            }
+            sibling.rank++;
+            parent.rank--;
+            if (parent.left == null && parent.right == null) {
+                parent.rank--;
+            }
+        } else {
+            Node<T> inner = leftSide ? sibling.left : sibling.right;
+            if (leftSide) {
+                rotateRight(sibling);
+                rotateLeft(parent);
+            } else {
+                rotateLeft(sibling);
+                rotateRight(parent);
+            }
+            inner.rank += 2;
+            sibling.rank--;
+            parent.rank -= 2;
+        }
+    }
+
+    // Right element of node now takes its place
+    private void rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        if (right.left != null) right.left.parent = node;
+        replaceChild(node, right);
+        right.left = node;
+        node.parent = right;
+        rotationsCount++;
+    }
+
+    // Left element of node now takes its place
+    private void rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        if (left.right != null) left.right.parent = node;
+        replaceChild(node, left);
+        left.right = node;
+        node.parent = left;
+        rotationsCount++;
+    }
+
+    // Links replacement where node hangs from its parent
+    private void replaceChild(Node<T> node, Node<T> replacement) {
+        Node<T> parent = node.parent;
+        if (replacement != null) replacement.parent = parent;
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    private static <T> Node<T> mostLeftChild(Node<T> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static <T> Node<T> successor(Node<T> node) {
+        if (node.right != null) return mostLeftChild(node.right);
+        Node<T> parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    @Override
+    public void rangeScan(T lo, T hi, Consumer<? super T> action) {
+        rangeScan(root, lo, hi, action);
+    }
+
+    private void rangeScan(Node<T> node, T lo, T hi, Consumer<? super T> action) {
+        if (node == null) return;
+        int cmpLo = lo.compareTo(node.value);
+        int cmpHi = hi.compareTo(node.value);
+        if (cmpLo < 0) rangeScan(node.left, lo, hi, action);
+        if (cmpLo <= 0 && cmpHi >= 0) action.accept(node.value);
+        if (cmpHi > 0) rangeScan(node.right, lo, hi, action);
+    }
+
+    // The values are collected first and removed individually: O(k log n)
+    @Override
+    public void removeRange(T lo, T hi) {
+        List<T> inRange = new ArrayList<>();
+        rangeScan(lo, hi, inRange::add);
+        for (T value : inRange) {
+            remove(value);
+        }
+    }
+
+    @Override
+    public void forEachInOrder(Consumer<? super T> action) {
+        forEachInOrder(root, action);
+    }
+
+    private void forEachInOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachInOrder(node.left, action);
+        action.accept(node.value);
+        forEachInOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPreOrder(Consumer<? super T> action) {
+        forEachPreOrder(root, action);
+    }
+
+    private void forEachPreOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        action.accept(node.value);
+        forEachPreOrder(node.left, action);
+        forEachPreOrder(node.right, action);
+    }
+
+    @Override
+    public void forEachPostOrder(Consumer<? super T> action) {
+        forEachPostOrder(root, action);
+    }
+
+    private void forEachPostOrder(Node<T> node, Consumer<? super T> action) {
+        if (node == null) return;
+        forEachPostOrder(node.left, action);
+        forEachPostOrder(node.right, action);
+        action.accept(node.value);
+    }
+
+    // Follows parent links, so the iterator needs no stack; the tree must not
+    // be modified while iterating.
+    @Override
+    public Iterator<T> inOrderIterator() {
+        return new Iterator<T>() {
+            private Node<T> next = root != null ? mostLeftChild(root) : null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more elements!");
+                }
+                T value = next.value;
+                next = successor(next);
+                return value;
+            }
+        };
+    }
+
+    private void resetCounters() {
+        rotationsCount = 0;
+        comparisonsCount = 0;
+        rebalancesCount = 0;
+    }
+
+    private void recordOperation(TreeStats.Operation operation, int depth) {
+        TreeStats current = stats;
+        if (current != null) {
+            current.record(operation, rotationsCount, comparisonsCount, depth, rebalancesCount);
+        }
+    }
+
+    private int compare(T value, Node<T> node) {
+        comparisonsCount++;
+        return value.compareTo(node.value);
+    }
+
+    private static int rank(Node<?> node) {
+        return node != null ? node.rank : -1;
+    }
+
+    private static class Node<T> {
+        private T value;
+        private int rank;
+        private Node<T> left;
+        private Node<T> right;
+        private Node<T> parent;
+
+        public Node(T value, Node<T> parent) {
+            this.value = value;
+            rank = 0;
+            left = right = null;
+            this.parent = parent;
+        }
+    }
+}